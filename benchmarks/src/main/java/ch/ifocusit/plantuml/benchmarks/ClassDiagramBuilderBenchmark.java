@@ -0,0 +1,82 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ch.ifocusit.plantuml.classdiagram.ClassDiagramBuilder;
+
+/**
+ * Class diagram generation steps on a synthetic domain.
+ *
+ * @author Julien Boz
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ClassDiagramBuilderBenchmark {
+
+    /**
+     * Builder whose classes are already read, to measure associations detection alone.
+     */
+    @State(Scope.Thread)
+    public static class ReadState {
+        ClassDiagramBuilder builder;
+
+        @Setup(Level.Invocation)
+        public void read(DomainState domain) {
+            builder = domain.newBuilder();
+            builder.readClasses();
+        }
+    }
+
+    @Benchmark
+    public ClassDiagramBuilder readClasses(DomainState domain) {
+        ClassDiagramBuilder builder = domain.newBuilder();
+        builder.readClasses();
+        return builder;
+    }
+
+    @Benchmark
+    public ClassDiagramBuilder detectAssociations(ReadState state) {
+        state.builder.detectAssociations();
+        return state.builder;
+    }
+
+    @Benchmark
+    public String build(DomainState domain) {
+        return domain.newBuilder().build();
+    }
+}
@@ -0,0 +1,81 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.benchmarks;
+
+import java.io.IOException;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import ch.ifocusit.plantuml.classdiagram.ClassDiagramBuilder;
+
+/**
+ * Synthetic domain shared by the benchmarks of a trial.
+ *
+ * @author Julien Boz
+ */
+@State(Scope.Benchmark)
+public class DomainState {
+
+    @Param({ "500", "5000" })
+    public int size;
+
+    @Param({ "8" })
+    public int fieldsPerClass;
+
+    @Param({ "0.3" })
+    public double genericRatio;
+
+    @Param({ "0.2" })
+    public double inheritanceRatio;
+
+    @Param({ "0.1" })
+    public double cycleRatio;
+
+    private SyntheticDomain domain;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        domain = SyntheticDomain.generate(new SyntheticDomain.Settings().size(size)
+                .fieldsPerClass(fieldsPerClass).genericRatio(genericRatio)
+                .inheritanceRatio(inheritanceRatio).cycleRatio(cycleRatio));
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        domain.close();
+    }
+
+    public SyntheticDomain getDomain() {
+        return domain;
+    }
+
+    /**
+     * @return a new builder of the whole domain
+     */
+    public ClassDiagramBuilder newBuilder() {
+        return new ClassDiagramBuilder().addClasses(domain.getClasses());
+    }
+}
@@ -0,0 +1,128 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ch.ifocusit.plantuml.PlantUmlBuilder;
+import ch.ifocusit.plantuml.classdiagram.ClassDiagramBuilder;
+import ch.ifocusit.plantuml.classdiagram.model.ClassAssociation;
+import ch.ifocusit.plantuml.classdiagram.model.clazz.JavaClazz;
+
+/**
+ * Rendering of the types and associations of a synthetic domain, without reading it.
+ * <p>
+ * Run with <code>-prof gc</code> to see the allocations of the rendering: streamed to a sink, a
+ * type should not allocate per rendered member.
+ *
+ * @author Julien Boz
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PlantUmlBuilderBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class ModelState {
+        List<JavaClazz> types;
+        List<ClassAssociation> associations;
+
+        @Setup(Level.Trial)
+        public void read(DomainState domain) {
+            DetectingBuilder builder = new DetectingBuilder();
+            builder.addClasses(domain.getDomain().getClasses());
+            builder.readClasses();
+            builder.detectAssociations();
+            types = builder.getTypes();
+            associations = builder.getAssociations();
+        }
+    }
+
+    @Benchmark
+    public String addType(ModelState model) {
+        PlantUmlBuilder builder = new PlantUmlBuilder();
+        model.types.forEach(builder::addType);
+        return builder.build();
+    }
+
+    /**
+     * Types written to a sink as soon as they are rendered, nothing is kept in memory.
+     */
+    @Benchmark
+    public long addTypeToSink(ModelState model) {
+        PlantUmlBuilder builder = new PlantUmlBuilder(NullAppendable.INSTANCE);
+        model.types.forEach(builder::addType);
+        return builder.getRenderedLength();
+    }
+
+    @Benchmark
+    public String addAssociation(ModelState model) {
+        PlantUmlBuilder builder = new PlantUmlBuilder();
+        model.associations.forEach(builder::addAssociation);
+        return builder.build();
+    }
+
+    private static final class NullAppendable implements Appendable {
+        private static final NullAppendable INSTANCE = new NullAppendable();
+
+        @Override
+        public Appendable append(CharSequence csq) {
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) {
+            return this;
+        }
+    }
+
+    private static class DetectingBuilder extends ClassDiagramBuilder {
+
+        List<JavaClazz> getTypes() {
+            return List.copyOf(clazzes);
+        }
+
+        List<ClassAssociation> getAssociations() {
+            return detectedAssociations.stream().collect(Collectors.toList());
+        }
+    }
+}
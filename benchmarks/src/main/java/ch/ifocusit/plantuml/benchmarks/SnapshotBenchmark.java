@@ -0,0 +1,91 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ch.ifocusit.plantuml.classdiagram.snapshot.DiagramSnapshot;
+import ch.ifocusit.plantuml.classdiagram.snapshot.SnapshotFile;
+
+/**
+ * Model of a synthetic domain, reflected from its classes or loaded from a snapshot file.
+ *
+ * @author Julien Boz
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    private static final String FINGERPRINT = "benchmark";
+
+    /**
+     * Snapshot file of the whole domain.
+     */
+    @State(Scope.Benchmark)
+    public static class FileState {
+        Path file;
+
+        @Setup(Level.Trial)
+        public void write(DomainState domain) throws IOException {
+            file = Files.createTempFile("domain", ".snapshot");
+            SnapshotFile.write(domain.newBuilder().snapshot(), FINGERPRINT, file);
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public DiagramSnapshot reflect(DomainState domain) {
+        return domain.newBuilder().snapshot();
+    }
+
+    @Benchmark
+    public DiagramSnapshot load(FileState state) {
+        return SnapshotFile.read(state.file, FINGERPRINT).orElseThrow();
+    }
+
+    @Benchmark
+    public String loadAndRender(FileState state) {
+        return SnapshotFile.read(state.file, FINGERPRINT).orElseThrow().render();
+    }
+}
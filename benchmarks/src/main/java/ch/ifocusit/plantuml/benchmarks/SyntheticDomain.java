@@ -0,0 +1,280 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.benchmarks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Synthetic domain compiled with <code>javax.tools</code> and loaded in its own class loader.
+ * <p>
+ * Each generated class <code>EntityN</code> has simple fields, references to other entities (some
+ * of them through a <code>List</code>), a getter per field and a few public methods using other
+ * entities. References go to previous entities only, unless a cycle is drawn. The same settings
+ * always generate the same domain.
+ *
+ * @author Julien Boz
+ */
+@SuppressWarnings("rawtypes")
+public final class SyntheticDomain implements Closeable {
+
+    public static final String PACKAGE_PREFIX = "bench.domain.p";
+
+    private final Path directory;
+    private final URLClassLoader classLoader;
+    private final List<Class> classes;
+
+    private SyntheticDomain(Path directory, URLClassLoader classLoader, List<Class> classes) {
+        this.directory = directory;
+        this.classLoader = classLoader;
+        this.classes = classes;
+    }
+
+    /**
+     * @return the generated classes, in generation order
+     */
+    public List<Class> getClasses() {
+        return classes;
+    }
+
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    @Override
+    public void close() throws IOException {
+        classLoader.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    public static SyntheticDomain generate(Settings settings) {
+        List<JavaFileObject> sources = new ArrayList<>();
+        Random random = new Random(settings.seed);
+        for (int i = 0; i < settings.size; i++) {
+            sources.add(new Source(className(settings, i), source(settings, random, i)));
+        }
+
+        try {
+            Path directory = Files.createTempDirectory("plantuml-benchmark");
+            compile(directory, sources);
+
+            URLClassLoader classLoader = new URLClassLoader(new java.net.URL[] { directory.toUri().toURL() },
+                    SyntheticDomain.class.getClassLoader());
+            List<Class> classes = new ArrayList<>();
+            for (int i = 0; i < settings.size; i++) {
+                classes.add(Class.forName(className(settings, i), false, classLoader));
+            }
+            return new SyntheticDomain(directory, classLoader, classes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Generated class not found", e);
+        }
+    }
+
+    private static void compile(Path directory, List<JavaFileObject> sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No java compiler available, run the benchmarks with a JDK");
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+            List<String> options = List.of("-d", directory.toString(), "-g:none", "-proc:none");
+            if (!compiler.getTask(null, fileManager, diagnostics, options, null, sources).call()) {
+                throw new IllegalStateException("Cannot compile synthetic domain: " + diagnostics.getDiagnostics()
+                        .stream().filter(d -> d.getKind() == Diagnostic.Kind.ERROR).findFirst()
+                        .map(Object::toString).orElse("unknown error"));
+            }
+        }
+    }
+
+    private static String packageName(Settings settings, int index) {
+        return PACKAGE_PREFIX + index / settings.classesPerPackage;
+    }
+
+    private static String className(Settings settings, int index) {
+        return packageName(settings, index) + ".Entity" + index;
+    }
+
+    /**
+     * @return another entity, a previous one unless a cycle is drawn, -1 if none
+     */
+    private static int target(Settings settings, Random random, int index) {
+        if (random.nextDouble() < settings.cycleRatio) {
+            int target = random.nextInt(settings.size);
+            return target == index ? -1 : target;
+        }
+        return index == 0 ? -1 : random.nextInt(index);
+    }
+
+    private static String source(Settings settings, Random random, int index) {
+        StringBuilder fields = new StringBuilder();
+        StringBuilder methods = new StringBuilder();
+        for (int f = 0; f < settings.fieldsPerClass; f++) {
+            // suffixed by the entity index, so subclasses never override their parent members
+            String name = "field" + f + "_" + index;
+            String type;
+            int target = random.nextDouble() < settings.referenceRatio ? target(settings, random, index) : -1;
+            if (target < 0) {
+                type = f % 2 == 0 ? "String" : "java.math.BigDecimal";
+            } else if (random.nextDouble() < settings.genericRatio) {
+                type = "java.util.List<" + className(settings, target) + ">";
+            } else {
+                type = className(settings, target);
+            }
+            fields.append("    private ").append(type).append(' ').append(name).append(";\n");
+            methods.append("    public ").append(type).append(" getField").append(f).append('_').append(index).append("() {\n")
+                    .append("        return ").append(name).append(";\n    }\n");
+        }
+        for (int m = 0; m < settings.methodsPerClass; m++) {
+            int parameter = target(settings, random, index);
+            int result = target(settings, random, index);
+            methods.append("    public ").append(result < 0 ? "void" : className(settings, result))
+                    .append(" operation").append(m).append('_').append(index).append('(')
+                    .append(parameter < 0 ? "String" : className(settings, parameter)).append(" value) {\n");
+            if (result >= 0) {
+                methods.append("        return null;\n");
+            }
+            methods.append("    }\n");
+        }
+
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(packageName(settings, index)).append(";\n\n");
+        source.append("public class Entity").append(index);
+        if (index > 0 && random.nextDouble() < settings.inheritanceRatio) {
+            source.append(" extends ").append(className(settings, random.nextInt(index)));
+        }
+        return source.append(" {\n").append(fields).append(methods).append("}\n").toString();
+    }
+
+    private static final class Source extends SimpleJavaFileObject {
+        private final String code;
+
+        Source(String className, String code) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    /**
+     * Shape of the generated domain.
+     */
+    public static final class Settings {
+        private int size = 500;
+        private int classesPerPackage = 100;
+        private int fieldsPerClass = 8;
+        private int methodsPerClass = 2;
+        private double referenceRatio = 0.5;
+        private double genericRatio = 0.3;
+        private double inheritanceRatio = 0.2;
+        private double cycleRatio = 0.1;
+        private long seed = 42;
+
+        /**
+         * Number of classes to generate.
+         */
+        public Settings size(int size) {
+            this.size = size;
+            return this;
+        }
+
+        public Settings classesPerPackage(int classesPerPackage) {
+            this.classesPerPackage = classesPerPackage;
+            return this;
+        }
+
+        public Settings fieldsPerClass(int fieldsPerClass) {
+            this.fieldsPerClass = fieldsPerClass;
+            return this;
+        }
+
+        public Settings methodsPerClass(int methodsPerClass) {
+            this.methodsPerClass = methodsPerClass;
+            return this;
+        }
+
+        /**
+         * Share of fields referencing another entity, the others are simple types.
+         */
+        public Settings referenceRatio(double referenceRatio) {
+            this.referenceRatio = referenceRatio;
+            return this;
+        }
+
+        /**
+         * Share of references declared as a <code>List</code> of entities.
+         */
+        public Settings genericRatio(double genericRatio) {
+            this.genericRatio = genericRatio;
+            return this;
+        }
+
+        /**
+         * Share of entities extending a previous one.
+         */
+        public Settings inheritanceRatio(double inheritanceRatio) {
+            this.inheritanceRatio = inheritanceRatio;
+            return this;
+        }
+
+        /**
+         * Share of references to any entity, which creates cycles between classes.
+         */
+        public Settings cycleRatio(double cycleRatio) {
+            this.cycleRatio = cycleRatio;
+            return this;
+        }
+
+        public Settings seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+    }
+}
@@ -25,18 +25,23 @@ import ch.ifocusit.plantuml.classdiagram.model.Link;
 import ch.ifocusit.plantuml.classdiagram.model.Package;
 import ch.ifocusit.plantuml.classdiagram.model.attribute.Attribute;
 import ch.ifocusit.plantuml.classdiagram.model.clazz.Clazz;
+import ch.ifocusit.plantuml.classdiagram.model.method.Method;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 
-import java.text.MessageFormat;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Optional;
 
 import static ch.ifocusit.plantuml.classdiagram.model.Association.AssociationType.DIRECTION;
 import static org.apache.commons.lang3.StringUtils.SPACE;
 
 /**
  * Plantuml diagram helper for java classes.
+ * <p>
+ * By default the diagram is kept in memory until {@link #build()}. When a sink is given, each
+ * element is written to it as soon as it is rendered, so only one element is kept in memory.
  *
  * @author Julien Boz
  */
@@ -59,21 +64,79 @@ public class PlantUmlBuilder {
     public static final String BRACKET_CLOSE = ")";
 
     private final StringBuilder content = new StringBuilder();
+    private Appendable out;
+    // characters rendered then written to a sink or discarded
+    private long written;
 
+    public PlantUmlBuilder() {
+    }
+
+    public PlantUmlBuilder(Appendable out) {
+        this.out = Validate.notNull(out, "No sink defined !");
+    }
+
+    /**
+     * Write the diagram to <code>out</code>: the content not yet written is flushed to it, then
+     * each element is written as soon as it is rendered.
+     */
+    public PlantUmlBuilder to(Appendable out) {
+        this.out = Validate.notNull(out, "No sink defined !");
+        return flush();
+    }
+
+    /**
+     * Discard the content not yet written, like an element left by a failed rendering.
+     */
+    public PlantUmlBuilder discard() {
+        written += content.length();
+        content.setLength(0);
+        return this;
+    }
+
+    /**
+     * @return the content not yet written to a sink, the whole diagram if none is defined
+     */
     public String build() {
         return content.toString();
     }
 
-    private String escape(String value) {
-        return QUOTE + value + QUOTE;
+    /**
+     * @return the number of characters rendered since this builder creation
+     */
+    public long getRenderedLength() {
+        return written + content.length();
     }
 
-    private String color(String color) {
-        return HASHTAG + color;
+    private PlantUmlBuilder flush() {
+        if (out != null && content.length() > 0) {
+            try {
+                out.append(content);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                // never written again, even to another sink
+                discard();
+            }
+        }
+        return this;
+    }
+
+    private void appendQuoted(String value) {
+        content.append(QUOTE).append(value).append(QUOTE);
+    }
+
+    private void appendColor(String color) {
+        content.append(SPACE).append(HASHTAG).append(color);
+    }
+
+    private void appendLink(Link link, Link.LinkContext context) {
+        content.append(SPACE);
+        link.appendTo(content, context);
     }
 
     private PlantUmlBuilder writeClazzDefinition(Clazz clazz) {
-        content.append(clazz.getType()).append(SPACE).append(escape(clazz.getName()));
+        content.append(clazz.getType()).append(SPACE);
+        appendQuoted(clazz.getName());
         return this;
     }
 
@@ -81,7 +144,7 @@ public class PlantUmlBuilder {
         if (value != null) {
             content.append(value);
         }
-        return this;
+        return flush();
     }
 
     // *********************************************************************************
@@ -94,7 +157,7 @@ public class PlantUmlBuilder {
             content.append(String.join(NEWLINE, options)).append(NEWLINE);
         }
         content.append(NEWLINE);
-        return this;
+        return flush();
     }
 
     public PlantUmlBuilder end(String... options) {
@@ -103,7 +166,7 @@ public class PlantUmlBuilder {
             content.append(String.join(NEWLINE, options)).append(NEWLINE);
         }
         content.append(ENDUML);
-        return this;
+        return flush();
     }
 
     // *********************************************************************************
@@ -114,7 +177,7 @@ public class PlantUmlBuilder {
         if (title != null) {
             content.append("title ").append(title).append(NEWLINE).append(NEWLINE);
         }
-        return this;
+        return flush();
     }
 
     // *********************************************************************************
@@ -126,7 +189,7 @@ public class PlantUmlBuilder {
             content.append("header").append(NEWLINE).append(header).append(NEWLINE)
                     .append("endheader").append(NEWLINE).append(NEWLINE);
         }
-        return this;
+        return flush();
     }
 
     public PlantUmlBuilder appendFooter(String footer) {
@@ -134,7 +197,7 @@ public class PlantUmlBuilder {
             content.append(NEWLINE).append("footer").append(NEWLINE).append(footer).append(NEWLINE)
                     .append("endfooter").append(NEWLINE);
         }
-        return this;
+        return flush();
     }
 
     // *********************************************************************************
@@ -144,23 +207,28 @@ public class PlantUmlBuilder {
     public PlantUmlBuilder addPackage(Package aPackage, Clazz... classes) {
         Validate.notNull(aPackage, "no package defined !");
         aPackage.validate();
-        Validate.notEmpty(classes,
-                String.format("Package '%s' must not be empty !", aPackage.getName()));
-
-        content.append(MessageFormat.format(PACKAGE_TMPL, aPackage.getName(), aPackage.getType()));
-        aPackage.getColor().ifPresent(color -> content.append(SPACE).append(color(color)));
+        // message is only formatted on failure
+        Validate.notEmpty(classes, "Package '%s' must not be empty !", aPackage.getName());
+
+        // same as PACKAGE_TMPL
+        content.append("package ").append(aPackage.getName()).append(SPACE).append(STEREOTYPE_OPEN)
+                .append(aPackage.getType()).append(STEREOTYPE_CLOSE);
+        Optional<String> color = aPackage.getColor();
+        if (color.isPresent()) {
+            appendColor(color.get());
+        }
 
-        if (classes.length > 0) {
-            content.append(SPACE).append(BRACE_OPEN).append(NEWLINE);
-            Stream.of(classes).forEach(clazz -> {
-                clazz.validate();
-                append(TAB).writeClazzDefinition(clazz).append(NEWLINE);
-            });
-            content.append(BRACE_CLOSE);
+        content.append(SPACE).append(BRACE_OPEN).append(NEWLINE);
+        for (Clazz clazz : classes) {
+            clazz.validate();
+            content.append(TAB);
+            writeClazzDefinition(clazz);
+            content.append(NEWLINE);
         }
+        content.append(BRACE_CLOSE);
         content.append(NEWLINE).append(NEWLINE);
 
-        return this;
+        return flush();
     }
 
     // *********************************************************************************
@@ -173,14 +241,22 @@ public class PlantUmlBuilder {
 
         writeClazzDefinition(clazz);
         // stereotype
-        clazz.getStereotypes()
-                .ifPresent(stereotypes -> content.append(SPACE).append(STEREOTYPE_OPEN)
-                        .append(String.join(", ", stereotypes))
-                        .append(STEREOTYPE_CLOSE));
+        Optional<List<String>> stereotypes = clazz.getStereotypes();
+        if (stereotypes.isPresent()) {
+            content.append(SPACE).append(STEREOTYPE_OPEN);
+            appendJoined(stereotypes.get());
+            content.append(STEREOTYPE_CLOSE);
+        }
         // class link
-        clazz.getLink().ifPresent(link -> content.append(SPACE).append(link.render(Link.LinkContext.CLASS)));
+        Optional<Link> classLink = clazz.getLink();
+        if (classLink.isPresent()) {
+            appendLink(classLink.get(), Link.LinkContext.CLASS);
+        }
         // class color
-        clazz.getBackgroundColor().ifPresent(color -> content.append(SPACE).append(color(color)));
+        Optional<String> color = clazz.getBackgroundColor();
+        if (color.isPresent()) {
+            appendColor(color.get());
+        }
 
         if (clazz.hasContent()) {
             content.append(SPACE).append(BRACE_OPEN).append(NEWLINE);
@@ -190,36 +266,61 @@ public class PlantUmlBuilder {
             // name
             content.append(TAB).append(attribute.getName());
             // type
-            attribute.getTypeName().ifPresent(
-                    type -> content.append(SPACE).append(SEMICOLON).append(SPACE).append(type));
+            appendType(attribute.getTypeName());
             // field link
-            attribute.getLink().ifPresent(link -> content.append(SPACE).append(link.render(Link.LinkContext.FIELD)));
+            Optional<Link> link = attribute.getLink();
+            if (link.isPresent()) {
+                appendLink(link.get(), Link.LinkContext.FIELD);
+            }
             content.append(NEWLINE);
         }
         // add methods
-        clazz.getMethods().forEach(method -> {
+        for (Method method : clazz.getMethods()) {
             // name
             content.append(TAB).append(method.getName());
             // parameters
-            method.getParameters().ifPresent(params -> {
+            Optional<? extends Attribute[]> parameters = method.getParameters();
+            if (parameters.isPresent()) {
                 content.append(BRACKET_OPEN);
-                content.append(
-                        Stream.of(params).map(param -> param.getTypeName().orElse(param.getName()))
-                                .collect(Collectors.joining(COMMA + SPACE)));
+                Attribute[] params = parameters.get();
+                for (int i = 0; i < params.length; i++) {
+                    if (i > 0) {
+                        content.append(COMMA).append(SPACE);
+                    }
+                    Optional<String> paramType = params[i].getTypeName();
+                    content.append(paramType.isPresent() ? paramType.get() : params[i].getName());
+                }
                 content.append(BRACKET_CLOSE);
-            });
+            }
             // type
-            method.getReturnTypeName().ifPresent(
-                    type -> content.append(SPACE).append(SEMICOLON).append(SPACE).append(type));
+            appendType(method.getReturnTypeName());
             // method link
-            method.getLink().ifPresent(link -> content.append(SPACE).append(link.render(Link.LinkContext.METHOD)));
+            Optional<Link> link = method.getLink();
+            if (link.isPresent()) {
+                appendLink(link.get(), Link.LinkContext.METHOD);
+            }
             content.append(NEWLINE);
-        });
+        }
         if (clazz.hasContent()) {
             content.append(BRACE_CLOSE);
         }
         content.append(NEWLINE).append(NEWLINE);
-        return this;
+        return flush();
+    }
+
+    private void appendType(Optional<String> type) {
+        if (type.isPresent()) {
+            content.append(SPACE).append(SEMICOLON).append(SPACE).append(type.get());
+        }
+    }
+
+    private void appendJoined(List<String> values) {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                content.append(COMMA).append(SPACE);
+            }
+            content.append(values.get(i));
+        }
     }
 
     // *********************************************************************************
@@ -257,7 +358,7 @@ public class PlantUmlBuilder {
         Validate.notNull(aCardinality, "Cardinality a name is mandatory");
         Validate.notNull(bCardinality, "Cardinality b name is mandatory");
 
-        content.append(escape(aName));
+        appendQuoted(aName);
         if (!Cardinality.NONE.equals(aCardinality)) {
             content.append(SPACE).append(QUOTE).append(aCardinality).append(QUOTE);
         }
@@ -265,12 +366,11 @@ public class PlantUmlBuilder {
         if (!Cardinality.NONE.equals(bCardinality)) {
             content.append(QUOTE).append(bCardinality).append(QUOTE).append(SPACE);
         }
-        content.append(escape(bName));
+        appendQuoted(bName);
         if (StringUtils.isNotBlank(label)) {
             content.append(SPACE).append(SEMICOLON).append(SPACE).append(label);
-
         }
         content.append(NEWLINE);
-        return this;
+        return flush();
     }
 }
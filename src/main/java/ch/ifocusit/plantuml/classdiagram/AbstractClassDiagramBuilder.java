@@ -23,16 +23,37 @@
 package ch.ifocusit.plantuml.classdiagram;
 
 import ch.ifocusit.plantuml.PlantUmlBuilder;
-import ch.ifocusit.plantuml.classdiagram.model.Association;
 import ch.ifocusit.plantuml.classdiagram.model.attribute.ClassAttribute;
 import ch.ifocusit.plantuml.classdiagram.model.clazz.JavaClazz;
 import ch.ifocusit.plantuml.classdiagram.model.method.ClassMethod;
 import ch.ifocusit.plantuml.utils.ClassUtils;
+import ch.ifocusit.plantuml.utils.ExclusionMatcher;
 import ch.ifocusit.plantuml.utils.PlantUmlUtils;
-
+import org.apache.commons.lang3.Validate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Member;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.stream.Stream;
+import java.util.stream.Collectors;
 
 /**
  * Build class diagram from Class definition.
@@ -53,7 +74,7 @@ public abstract class AbstractClassDiagramBuilder implements LinkMaker {
     protected final PlantUmlBuilder builder = new PlantUmlBuilder();
 
     protected final Set<JavaClazz> clazzes = new TreeSet<>();
-    protected final Set<Association> detectedAssociations = new HashSet<>();
+    protected final AssociationRegistry detectedAssociations = new AssociationRegistry();
 
     protected LinkMaker linkMaker = this;
 
@@ -63,7 +84,11 @@ public abstract class AbstractClassDiagramBuilder implements LinkMaker {
     private String title;
     private String footer;
 
-    private final Map<Class, JavaClazz> cache = new HashMap<>();
+    // classes already read by this builder, cleared when a setting changing their reading changes
+    protected final Map<Class, JavaClazz> cache = new ConcurrentHashMap<>();
+
+    private final List<String> excludes = new ArrayList<>();
+    private ExclusionMatcher exclusions = ExclusionMatcher.none();
 
     /**
      * Add not specified Object.
@@ -72,9 +97,48 @@ public abstract class AbstractClassDiagramBuilder implements LinkMaker {
 
     protected boolean hideSelfLink = true;
 
+    /**
+     * Executor used to extract classes concurrently, sequential if null.
+     */
+    protected Executor executor;
+
+    private final List<BuildListener> listeners = new ArrayList<>();
+
+    // rendered classes shared with other builders, none by default
+    private FragmentCache fragmentCache;
+
+    // build counters, updated concurrently when classes are read on an executor
+    protected final AtomicLong scannedClasses = new AtomicLong();
+    protected final AtomicLong readMembers = new AtomicLong();
+    protected final AtomicLong cacheHits = new AtomicLong();
+    protected final AtomicLong cacheMisses = new AtomicLong();
+
+    // set for the duration of an asynchronous build
+    private volatile BuildControl control;
+
     public AbstractClassDiagramBuilder() {
     }
 
+    /**
+     * Builder restoring the configuration of <code>spec</code>.
+     */
+    protected AbstractClassDiagramBuilder(DiagramSpec spec) {
+        this.additionalFieldPredicate = spec.getFieldPredicate();
+        this.additionalMethodPredicate = spec.getMethodPredicate();
+        this.excludes.addAll(spec.getExcludes());
+        this.exclusions = ExclusionMatcher.compile(this.excludes);
+        this.startOptions = spec.getStartOptions();
+        this.endOptions = spec.getEndOptions();
+        this.header = spec.getHeader();
+        this.title = spec.getTitle();
+        this.footer = spec.getFooter();
+        this.withDependencies = spec.isWithDependencies();
+        this.hideSelfLink = spec.isHideSelfLink();
+        this.linkMaker = spec.getLinkMaker().orElse(this);
+        this.listeners.addAll(spec.getBuildListeners());
+        this.fragmentCache = spec.getFragmentCache().orElse(null);
+    }
+
     public <B extends AbstractClassDiagramBuilder> B setHeader(String header) {
         this.header = header;
         return (B) this;
@@ -100,52 +164,272 @@ public abstract class AbstractClassDiagramBuilder implements LinkMaker {
         return (B) this;
     }
 
+    /**
+     * Exclude the fields and methods whose <code>className.memberName</code> matches one of the
+     * patterns, see {@link ExclusionMatcher} for the patterns syntax.
+     */
     public <B extends AbstractClassDiagramBuilder> B excludes(String... excludes) {
-        // keep the corresponding fields
-        Predicate<ClassAttribute> notMatchField = field -> Stream.of(excludes)
-                .noneMatch(excl -> field.toStringAttribute().matches(excl));
-        this.additionalFieldPredicate = this.additionalFieldPredicate.and(notMatchField);
-
-        // keep the corresponding fields
-        Predicate<ClassMethod> notMatchMethod = field -> Stream.of(excludes)
-                .noneMatch(excl -> field.toStringMethod().matches(excl));
-        this.additionalMethodPredicate = this.additionalMethodPredicate.and(notMatchMethod);
+        this.excludes.addAll(Arrays.asList(excludes));
+        // all patterns are compiled together, once
+        this.exclusions = ExclusionMatcher.compile(this.excludes);
+        cache.clear();
         return (B) this;
     }
 
     public <B extends AbstractClassDiagramBuilder> B addFieldPredicate(
             Predicate<ClassAttribute> predicate) {
         this.additionalFieldPredicate = this.additionalFieldPredicate.and(predicate);
+        cache.clear();
         return (B) this;
     }
 
     public <B extends AbstractClassDiagramBuilder> B addMethodPredicate(
             Predicate<ClassMethod> predicate) {
         this.additionalMethodPredicate = this.additionalMethodPredicate.and(predicate);
+        cache.clear();
         return (B) this;
     }
 
     public <B extends AbstractClassDiagramBuilder> B withLinkMaker(LinkMaker linkMaker) {
         this.linkMaker = linkMaker;
+        cache.clear();
         return (B) this;
     }
 
     public String build() {
+        return build(new StringBuilder()).toString();
+    }
+
+    /**
+     * Build the diagram and write it to <code>out</code>, element by element.
+     *
+     * @return <code>out</code>
+     */
+    public <A extends Appendable> A build(A out) {
+        // a builder can be built many times, but not concurrently, see DiagramEngine
+        clazzes.clear();
+        detectedAssociations.clear();
+        // content left by a failed build is not part of this diagram
+        builder.discard().to(out);
+        List<PhaseMetrics> phases = new ArrayList<>();
+        // the start of the diagram does not depend on classes, write it before reading them
+        builder.start(startOptions);
+        builder.appendHeader(header);
+        builder.appendTitle(title);
         // parse classes repository
         // extract java classes definitions
-        readClasses();
+        runPhase(BuildPhase.READ_CLASSES, this::readClasses, phases);
         // from java classes, detect associations
-        detectAssociations();
+        runPhase(BuildPhase.DETECT_ASSOCIATIONS, this::detectAssociations, phases);
         // generate diagram from configuration
-        builder.start(startOptions);
-        builder.appendHeader(header);
-        builder.appendTitle(title);
-        addPackages(); // add package definition
-        addTypes(); // add types definition
-        addAssociations(); // then add their associations
+        runPhase(BuildPhase.ADD_PACKAGES, this::addPackages, phases); // add package definition
+        runPhase(BuildPhase.ADD_TYPES, this::addTypes, phases); // add types definition
+        runPhase(BuildPhase.ADD_ASSOCIATIONS, this::addAssociations, phases); // then add their associations
         builder.appendFooter(footer);
         builder.end(endOptions);
-        return builder.build();
+        if (!listeners.isEmpty()) {
+            List<PhaseMetrics> completed = Collections.unmodifiableList(phases);
+            listeners.forEach(listener -> listener.buildCompleted(completed));
+        }
+        return out;
+    }
+
+    /**
+     * Build the diagram on <code>executor</code>.
+     *
+     * @see #buildAsync(Executor, Duration, Consumer)
+     */
+    public CompletableFuture<String> buildAsync(Executor executor) {
+        return buildAsync(executor, null, progress -> {
+        });
+    }
+
+    /**
+     * Build the diagram on <code>executor</code>, reporting its progress to <code>progress</code>.
+     *
+     * @see #buildAsync(Executor, Duration, Consumer)
+     */
+    public CompletableFuture<String> buildAsync(Executor executor, Consumer<BuildProgress> progress) {
+        return buildAsync(executor, null, progress);
+    }
+
+    /**
+     * Build the diagram on <code>executor</code>.
+     * <p>
+     * The build checks its future after each class read, each class links collected and each type
+     * or association rendered: once the future is completed, by a {@link CompletableFuture#cancel
+     * cancellation}, an {@link CompletableFuture#orTimeout timeout} or the <code>timeout</code>,
+     * the build stops and its partial result is dropped. The progress is reported at each check;
+     * it must be thread-safe when classes are read concurrently, see {@link #withExecutor(Executor)}.
+     * <p>
+     * The builder must not be used by another build until the future's task is over.
+     *
+     * @param timeout the build duration after which the future fails with a
+     *        {@link java.util.concurrent.TimeoutException}, none if null
+     */
+    public CompletableFuture<String> buildAsync(Executor executor, Duration timeout,
+            Consumer<BuildProgress> progress) {
+        Validate.notNull(executor, "No executor defined !");
+        Validate.notNull(progress, "No progress callback defined !");
+        CompletableFuture<String> result = new CompletableFuture<>();
+        if (timeout != null) {
+            result.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        try {
+            executor.execute(() -> {
+                if (result.isDone()) {
+                    return; // cancelled before start
+                }
+                control = new BuildControl(result, progress);
+                try {
+                    result.complete(build());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    control = null;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Stop an asynchronous build whose result is already completed, else report its progress.
+     * Does nothing for a synchronous build.
+     */
+    void checkpoint(BuildPhase phase) {
+        BuildControl current = control;
+        if (current == null) {
+            return;
+        }
+        if (current.result.isDone()) {
+            throw new CancellationException("Build of " + getDiagramName() + " stopped");
+        }
+        current.progress.accept(new BuildProgress(phase,
+                cacheHits.get() + cacheMisses.get() - current.startLookups,
+                detectedAssociations.size() + current.pendingCandidates.get(),
+                builder.getRenderedLength() - current.startRendered));
+    }
+
+    /**
+     * Count association candidates collected but not registered yet, reported as detected
+     * associations by an asynchronous build until they are registered.
+     */
+    void countPendingCandidates(int delta) {
+        BuildControl current = control;
+        if (current != null) {
+            current.pendingCandidates.addAndGet(delta);
+        }
+    }
+
+    /**
+     * Run a build phase, measured only if a listener is registered or the Flight Recorder event is
+     * enabled.
+     */
+    private void runPhase(BuildPhase phase, Runnable step, List<PhaseMetrics> phases) {
+        BuildPhaseEvent event = FlightRecorder.AVAILABLE ? BuildPhaseEvent.start() : null;
+        if (listeners.isEmpty() && event == null) {
+            step.run();
+            checkpoint(phase);
+            return;
+        }
+        long[] before = counters();
+        long start = System.nanoTime();
+        step.run();
+        long duration = System.nanoTime() - start;
+        long[] after = counters();
+
+        PhaseMetrics metrics = new PhaseMetrics(getDiagramName(), phase, duration,
+                after[0] - before[0], after[1] - before[1], after[2] - before[2],
+                after[3] - before[3], after[4] - before[4], after[5] - before[5],
+                after[6] - before[6]);
+        if (event != null) {
+            event.commit(metrics);
+        }
+        phases.add(metrics);
+        listeners.forEach(listener -> listener.phaseCompleted(metrics));
+        checkpoint(phase);
+    }
+
+    /**
+     * Whether the <code>jdk.jfr</code> module is in the runtime, checked once.
+     */
+    private static final class FlightRecorder {
+        static final boolean AVAILABLE = isAvailable();
+
+        private static boolean isAvailable() {
+            try {
+                Class.forName(BuildPhaseEvent.class.getName());
+                return true;
+            } catch (ClassNotFoundException | LinkageError e) {
+                return false;
+            }
+        }
+    }
+
+    private long[] counters() {
+        return new long[] { scannedClasses.get(), readMembers.get(), detectedAssociations.size(),
+                detectedAssociations.getMergedCount(), builder.getRenderedLength(), cacheHits.get(),
+                cacheMisses.get() };
+    }
+
+    /**
+     * @return the name identifying this diagram in build metrics
+     */
+    protected String getDiagramName() {
+        return title;
+    }
+
+    /**
+     * Build the diagram and write it to <code>writer</code>. The writer is flushed but not closed.
+     */
+    public void writeTo(Writer writer) throws IOException {
+        try {
+            build(writer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Build the diagram and write it to <code>out</code> using <code>charset</code>. The stream is
+     * flushed but not closed.
+     */
+    public void writeTo(OutputStream out, Charset charset) throws IOException {
+        writeTo(new BufferedWriter(new OutputStreamWriter(out, charset)));
+    }
+
+    /**
+     * Build the diagram and write it to <code>file</code>, in UTF-8 with <code>\n</code> line
+     * endings, only if its content changed.
+     *
+     * @see DiagramFile
+     */
+    public DiagramFile.Result writeIfChanged(Path file) throws IOException {
+        return DiagramFile.write(this, file);
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getFooter() {
+        return footer;
+    }
+
+    public String[] getStartOptions() {
+        return startOptions;
+    }
+
+    public String[] getEndOptions() {
+        return endOptions;
     }
 
     public abstract void addPackages();
@@ -165,7 +449,60 @@ public abstract class AbstractClassDiagramBuilder implements LinkMaker {
     public abstract void readClasses();
 
     public void addTypes() {
-        clazzes.forEach(builder::addType);
+        if (fragmentCache == null) {
+            clazzes.forEach(clazz -> {
+                builder.addType(clazz);
+                checkpoint(BuildPhase.ADD_TYPES);
+            });
+            return;
+        }
+        FragmentCache.Settings settings = getRenderSettings();
+        for (JavaClazz clazz : clazzes) {
+            builder.append(fragmentCache.get(clazz.getRelatedClass(), settings,
+                    () -> new PlantUmlBuilder().addType(clazz).build()));
+            checkpoint(BuildPhase.ADD_TYPES);
+        }
+    }
+
+    /**
+     * @return the settings changing the rendered definition of a class
+     */
+    FragmentCache.Settings getRenderSettings() {
+        return new FragmentCache.Settings(null, linkMaker == this && isDefaultBuilder() ? null : linkMaker,
+                additionalFieldPredicate, additionalMethodPredicate, excludes);
+    }
+
+    /**
+     * @return true if this builder does not override the default mappers
+     */
+    boolean isDefaultBuilder() {
+        return false;
+    }
+
+    /**
+     * Reuse the class definitions rendered by other builders sharing <code>cache</code>.
+     */
+    public <B extends AbstractClassDiagramBuilder> B withFragmentCache(FragmentCache cache) {
+        this.fragmentCache = cache;
+        return (B) this;
+    }
+
+    FragmentCache getFragmentCache() {
+        return fragmentCache;
+    }
+
+    /**
+     * @return the exclusion patterns, matched against <code>className.memberName</code>
+     */
+    public List<String> getExcludes() {
+        return Collections.unmodifiableList(excludes);
+    }
+
+    /**
+     * @return true if the field or method is excluded by the {@link #excludes(String...)} patterns
+     */
+    public boolean isExcluded(Member member) {
+        return exclusions.matches(member.getDeclaringClass().getName(), member.getName());
     }
 
     public Predicate<ClassAttribute> filterFields() {
@@ -177,7 +514,11 @@ public abstract class AbstractClassDiagramBuilder implements LinkMaker {
     }
 
     public void addAssociations() {
-        detectedAssociations.stream().sorted().forEach(builder::addAssociation);
+        // registry is already sorted
+        detectedAssociations.stream().forEach(association -> {
+            builder.addAssociation(association);
+            checkpoint(BuildPhase.ADD_ASSOCIATIONS);
+        });
     }
 
     public <B extends AbstractClassDiagramBuilder> B withDependencies(boolean flag) {
@@ -199,4 +540,69 @@ public abstract class AbstractClassDiagramBuilder implements LinkMaker {
         return withDependencies(true);
     }
 
+    /**
+     * Report the metrics of each build phase to <code>listener</code>.
+     */
+    public <B extends AbstractClassDiagramBuilder> B withBuildListener(BuildListener listener) {
+        this.listeners.add(listener);
+        return (B) this;
+    }
+
+    public List<BuildListener> getBuildListeners() {
+        return Collections.unmodifiableList(listeners);
+    }
+
+    /**
+     * Extract classes concurrently on <code>executor</code>. The generated diagram is the same as
+     * the sequential one, but predicates, names mapper and link maker must be thread-safe.
+     */
+    public <B extends AbstractClassDiagramBuilder> B withExecutor(Executor executor) {
+        this.executor = executor;
+        return (B) this;
+    }
+
+    /**
+     * Apply <code>function</code> on each item, concurrently if an executor is defined.
+     *
+     * @return the results, in items order
+     */
+    protected <T, R> List<R> mapInOrder(Collection<T> items, Function<T, R> function) {
+        if (executor == null) {
+            return items.stream().map(function).collect(Collectors.toList());
+        }
+        List<CompletableFuture<R>> futures = items.stream()
+                .map(item -> CompletableFuture.supplyAsync(() -> function.apply(item), executor))
+                .collect(Collectors.toList());
+        try {
+            return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * State of an asynchronous build.
+     */
+    private final class BuildControl {
+        private final CompletableFuture<String> result;
+        private final Consumer<BuildProgress> progress;
+        // classes looked up before the build
+        private final long startLookups = cacheHits.get() + cacheMisses.get();
+        // characters rendered before the build
+        private final long startRendered = builder.getRenderedLength();
+        // association candidates collected but not registered yet
+        private final AtomicLong pendingCandidates = new AtomicLong();
+
+        private BuildControl(CompletableFuture<String> result, Consumer<BuildProgress> progress) {
+            this.result = result;
+            this.progress = progress;
+        }
+    }
+
 }
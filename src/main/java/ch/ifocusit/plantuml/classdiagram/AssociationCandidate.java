@@ -0,0 +1,94 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import java.util.function.Function;
+import ch.ifocusit.plantuml.classdiagram.model.Cardinality;
+import ch.ifocusit.plantuml.classdiagram.model.ClassAssociation;
+
+/**
+ * Link from a class to another one, found while browsing the class members. Candidates are
+ * collected class by class, possibly concurrently, then registered in classes order.
+ *
+ * @author Julien Boz
+ */
+@SuppressWarnings("rawtypes")
+final class AssociationCandidate {
+
+    enum Kind {
+        INHERITANCE, ATTRIBUTE, METHOD
+    }
+
+    private final Kind kind;
+    private final Class origin;
+    private final Class target;
+    private final String label;
+    private final Cardinality cardinality;
+
+    private AssociationCandidate(Kind kind, Class origin, Class target, String label,
+            Cardinality cardinality) {
+        this.kind = kind;
+        this.origin = origin;
+        this.target = target;
+        this.label = label;
+        this.cardinality = cardinality;
+    }
+
+    static AssociationCandidate inheritance(Class child, Class parent) {
+        return new AssociationCandidate(Kind.INHERITANCE, child, parent, null, null);
+    }
+
+    static AssociationCandidate member(Kind kind, Class origin, Class target, String label,
+            Cardinality cardinality) {
+        return new AssociationCandidate(kind, origin, target, label, cardinality);
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    Class getOrigin() {
+        return origin;
+    }
+
+    Class getTarget() {
+        return target;
+    }
+
+    /**
+     * @return the same link to another version of its target class
+     */
+    AssociationCandidate withTarget(Class target) {
+        return new AssociationCandidate(kind, origin, target, label, cardinality);
+    }
+
+    /**
+     * @return the association created or updated by this link
+     */
+    ClassAssociation registerIn(AssociationRegistry registry, Function<Class, String> namer) {
+        if (kind == Kind.INHERITANCE) {
+            return registry.addInheritance(target, origin, namer);
+        }
+        return registry.addOrUpdate(origin, target, label, cardinality, kind == Kind.ATTRIBUTE, namer);
+    }
+}
@@ -0,0 +1,192 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import static ch.ifocusit.plantuml.classdiagram.model.Association.AssociationType.DIRECTION;
+import static ch.ifocusit.plantuml.classdiagram.model.Association.AssociationType.INHERITANCE;
+import static ch.ifocusit.plantuml.classdiagram.model.Cardinality.MANY;
+import static ch.ifocusit.plantuml.classdiagram.model.Cardinality.NONE;
+import static org.apache.commons.lang3.StringUtils.EMPTY;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import ch.ifocusit.plantuml.classdiagram.model.Cardinality;
+import ch.ifocusit.plantuml.classdiagram.model.ClassAssociation;
+import ch.ifocusit.plantuml.utils.ClassUtils;
+
+/**
+ * Associations detected between the classes of a diagram.
+ * <p>
+ * Associations are indexed by their unordered pair of classes, so looking up or updating the
+ * association between two classes does not depend on the number of associations already detected.
+ * They are also kept sorted by key, ready to be rendered.
+ *
+ * @author Julien Boz
+ */
+@SuppressWarnings("rawtypes")
+public class AssociationRegistry {
+
+    private final Map<ClassPair, ClassAssociation> index = new HashMap<>();
+    private final NavigableMap<String, List<ClassAssociation>> sorted = new TreeMap<>();
+    private int size;
+    private long merged;
+
+    /**
+     * Add an inheritance association between a parent class and its child. Inheritance is never
+     * merged with another association.
+     */
+    public ClassAssociation addInheritance(Class parent, Class child, Function<Class, String> namer) {
+        ClassAssociation assoc = new ClassAssociation(parent, child);
+        assoc.setaName(namer.apply(parent));
+        assoc.setaCardinality(NONE);
+        assoc.setbName(namer.apply(child));
+        assoc.setbCardinality(NONE);
+        assoc.setLabel(EMPTY);
+        assoc.setType(INHERITANCE);
+        register(assoc);
+        return assoc;
+    }
+
+    /**
+     * Add an association from <code>origin</code> to <code>target</code>, or update the existing
+     * association between these two classes: a link from the other side makes it bidirectional, an
+     * attribute link updates its cardinality and appends its label.
+     *
+     * @param label the label of the link
+     * @param cardinality the cardinality on the target side
+     * @param attribute true if the link comes from a class attribute
+     * @param namer the function used to name the classes of a new association
+     */
+    public ClassAssociation addOrUpdate(Class origin, Class target, String label,
+            Cardinality cardinality, boolean attribute, Function<Class, String> namer) {
+        // a class linked with itself is never merged
+        ClassPair pair = origin.equals(target) ? null : new ClassPair(origin, target);
+
+        ClassAssociation existing = pair == null ? null : index.get(pair);
+        if (existing != null) {
+            merged++;
+            if (existing.isNoSameOrigin(origin)) {
+                // mark association as bidirectional
+                existing.setBidirectional();
+            }
+            if (attribute) {
+                // update cardinality
+                existing.setaCardinality(cardinality);
+                // change name
+                existing.setLabel(existing.getLabel() + "/" + label);
+            }
+            return existing;
+        }
+
+        ClassAssociation assoc = new ClassAssociation(origin, target);
+        assoc.setaName(namer.apply(origin));
+        assoc.setaCardinality(ClassUtils.isCollection(origin) ? MANY : NONE);
+        assoc.setbName(namer.apply(target));
+        assoc.setbCardinality(cardinality);
+        assoc.setLabel(label);
+        assoc.setType(DIRECTION);
+        if (pair != null) {
+            index.put(pair, assoc);
+        }
+        register(assoc);
+        return assoc;
+    }
+
+    /**
+     * @return the association to merge links between the two classes into, whatever their order
+     */
+    public Optional<ClassAssociation> find(Class classA, Class classB) {
+        return Optional.ofNullable(index.get(new ClassPair(classA, classB)));
+    }
+
+    /**
+     * @return associations sorted by key
+     */
+    public Stream<ClassAssociation> stream() {
+        return sorted.values().stream().flatMap(List::stream);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of links merged into an existing association
+     */
+    public long getMergedCount() {
+        return merged;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        index.clear();
+        sorted.clear();
+        size = 0;
+        merged = 0;
+    }
+
+    private void register(ClassAssociation assoc) {
+        sorted.computeIfAbsent(assoc.getKey(), key -> new ArrayList<>(1)).add(assoc);
+        size++;
+    }
+
+    /**
+     * Unordered pair of classes.
+     */
+    private static final class ClassPair {
+        private final Class first;
+        private final Class second;
+
+        private ClassPair(Class first, Class second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ClassPair)) {
+                return false;
+            }
+            ClassPair other = (ClassPair) o;
+            return (first.equals(other.first) && second.equals(other.second))
+                    || (first.equals(other.second) && second.equals(other.first));
+        }
+
+        @Override
+        public int hashCode() {
+            return first.hashCode() + second.hashCode();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import java.util.List;
+
+/**
+ * Receive the metrics of each build phase. Listeners are called on the building thread, they must
+ * be thread-safe when the same listener is used by concurrent builds.
+ *
+ * @author Julien Boz
+ */
+public interface BuildListener {
+
+    /**
+     * Called when a phase is completed.
+     */
+    default void phaseCompleted(PhaseMetrics metrics) {
+    }
+
+    /**
+     * Called when the diagram is completely built.
+     *
+     * @param phases the metrics of each phase, in execution order
+     */
+    default void buildCompleted(List<PhaseMetrics> phases) {
+    }
+}
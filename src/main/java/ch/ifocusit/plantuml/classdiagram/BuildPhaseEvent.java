@@ -0,0 +1,100 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of a build phase, committed with the same values as {@link PhaseMetrics}.
+ *
+ * @author Julien Boz
+ */
+@Name("ch.ifocusit.plantuml.BuildPhase")
+@Label("Diagram Build Phase")
+@Category("PlantUML Builder")
+@Description("A phase of a class diagram build")
+@StackTrace(false)
+class BuildPhaseEvent extends jdk.jfr.Event {
+
+    @Label("Diagram")
+    String diagram;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Scanned Classes")
+    long scannedClasses;
+
+    @Label("Read Members")
+    long readMembers;
+
+    @Label("Created Associations")
+    long createdAssociations;
+
+    @Label("Merged Associations")
+    long mergedAssociations;
+
+    @Label("Rendered Characters")
+    long renderedLength;
+
+    @Label("Cache Hits")
+    long cacheHits;
+
+    @Label("Cache Misses")
+    long cacheMisses;
+
+    /**
+     * @return a started event, null if the event is not enabled
+     */
+    static BuildPhaseEvent start() {
+        BuildPhaseEvent event = new BuildPhaseEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * End the event and commit it with <code>metrics</code> if it passes the recording settings.
+     */
+    void commit(PhaseMetrics metrics) {
+        end();
+        if (shouldCommit()) {
+            diagram = metrics.getDiagram();
+            phase = metrics.getPhase().name();
+            scannedClasses = metrics.getScannedClasses();
+            readMembers = metrics.getReadMembers();
+            createdAssociations = metrics.getCreatedAssociations();
+            mergedAssociations = metrics.getMergedAssociations();
+            renderedLength = metrics.getRenderedLength();
+            cacheHits = metrics.getCacheHits();
+            cacheMisses = metrics.getCacheMisses();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+/**
+ * Progress of an asynchronous build, see
+ * {@link AbstractClassDiagramBuilder#buildAsync(java.util.concurrent.Executor, java.util.function.Consumer)}.
+ *
+ * @author Julien Boz
+ */
+public final class BuildProgress {
+
+    private final BuildPhase phase;
+    private final long classesRead;
+    private final long associationsDetected;
+    private final long renderedLength;
+
+    BuildProgress(BuildPhase phase, long classesRead, long associationsDetected, long renderedLength) {
+        this.phase = phase;
+        this.classesRead = classesRead;
+        this.associationsDetected = associationsDetected;
+        this.renderedLength = renderedLength;
+    }
+
+    /**
+     * @return the running phase
+     */
+    public BuildPhase getPhase() {
+        return phase;
+    }
+
+    /**
+     * @return the number of classes read since the build start, including the cached ones
+     */
+    public long getClassesRead() {
+        return classesRead;
+    }
+
+    /**
+     * @return the number of associations detected since the build start, the collected candidates
+     *         while associations are detected
+     */
+    public long getAssociationsDetected() {
+        return associationsDetected;
+    }
+
+    /**
+     * @return the number of characters rendered since the build start
+     */
+    public long getRenderedLength() {
+        return renderedLength;
+    }
+
+    @Override
+    public String toString() {
+        return phase + ": " + classesRead + " classes read, " + associationsDetected
+                + " associations detected, " + renderedLength + " chars rendered";
+    }
+}
@@ -0,0 +1,91 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.function.Predicate;
+import org.apache.commons.lang3.Validate;
+import com.google.common.cache.CacheStats;
+import ch.ifocusit.plantuml.classdiagram.model.Link;
+
+/**
+ * {@link LinkMaker} calling its delegate once per class, field or method.
+ * <p>
+ * The links are kept across builds, a link maker can be shared by the builders of a job to make
+ * each link once for all the diagrams: the same {@link Link} instance is then used by all of them,
+ * it must not be modified. It is thread-safe if its delegate is, and bounded by the number of
+ * cached links, the least recently used ones are evicted first.
+ *
+ * @author Julien Boz
+ */
+@SuppressWarnings("rawtypes")
+public final class CachingLinkMaker implements LinkMaker {
+
+    private final LinkMaker delegate;
+    private final MetadataCache<Optional<Link>> links;
+
+    /**
+     * @param maximumSize the maximum number of cached links
+     */
+    public CachingLinkMaker(LinkMaker delegate, long maximumSize) {
+        this.delegate = Validate.notNull(delegate, "No link maker defined !");
+        this.links = new MetadataCache<>(maximumSize);
+    }
+
+    @Override
+    public Optional<Link> getClassLink(Class aClass) {
+        return links.get(aClass, () -> delegate.getClassLink(aClass));
+    }
+
+    @Override
+    public Optional<Link> getFieldLink(Field field) {
+        return links.get(field, () -> delegate.getFieldLink(field));
+    }
+
+    @Override
+    public Optional<Link> getMethodLink(Method method) {
+        return links.get(method, () -> delegate.getMethodLink(method));
+    }
+
+    /**
+     * Remove the links of the matching classes and of their members, for example those of a closed
+     * class loader.
+     */
+    public void invalidate(Predicate<Class> classes) {
+        links.invalidate(classes);
+    }
+
+    public void invalidateAll() {
+        links.invalidateAll();
+    }
+
+    public long size() {
+        return links.size();
+    }
+
+    public CacheStats stats() {
+        return links.stats();
+    }
+}
@@ -0,0 +1,89 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.function.Predicate;
+import org.apache.commons.lang3.Validate;
+import com.google.common.cache.CacheStats;
+
+/**
+ * {@link NamesMapper} calling its delegate once per class, field or method: a class name is mapped
+ * once, not for each association it appears in.
+ * <p>
+ * The names are kept across builds, a mapper can be shared by the builders of a job to map each
+ * name once for all the diagrams. It is thread-safe if its delegate is, and bounded by the number
+ * of cached names, the least recently used ones are evicted first.
+ *
+ * @author Julien Boz
+ */
+@SuppressWarnings("rawtypes")
+public final class CachingNamesMapper implements NamesMapper {
+
+    private final NamesMapper delegate;
+    private final MetadataCache<String> names;
+
+    /**
+     * @param maximumSize the maximum number of cached names
+     */
+    public CachingNamesMapper(NamesMapper delegate, long maximumSize) {
+        this.delegate = Validate.notNull(delegate, "No names mapper defined !");
+        this.names = new MetadataCache<>(maximumSize);
+    }
+
+    @Override
+    public String getClassName(Class aClass) {
+        return names.get(aClass, () -> delegate.getClassName(aClass));
+    }
+
+    @Override
+    public String getFieldName(Field field) {
+        return names.get(field, () -> delegate.getFieldName(field));
+    }
+
+    @Override
+    public String getMethodName(Method method) {
+        return names.get(method, () -> delegate.getMethodName(method));
+    }
+
+    /**
+     * Remove the names of the matching classes and of their members, for example those of a closed
+     * class loader.
+     */
+    public void invalidate(Predicate<Class> classes) {
+        names.invalidate(classes);
+    }
+
+    public void invalidateAll() {
+        names.invalidateAll();
+    }
+
+    public long size() {
+        return names.size();
+    }
+
+    public CacheStats stats() {
+        return names.stats();
+    }
+}
@@ -22,32 +22,40 @@
  */
 package ch.ifocusit.plantuml.classdiagram;
 
-import static ch.ifocusit.plantuml.classdiagram.model.Association.AssociationType.BI_DIRECTION;
-import static ch.ifocusit.plantuml.classdiagram.model.Association.AssociationType.DIRECTION;
-import static ch.ifocusit.plantuml.classdiagram.model.Association.AssociationType.INHERITANCE;
 import static ch.ifocusit.plantuml.classdiagram.model.Cardinality.MANY;
 import static ch.ifocusit.plantuml.classdiagram.model.Cardinality.NONE;
 import static ch.ifocusit.plantuml.utils.ClassUtils.DOLLAR;
-import static org.apache.commons.lang3.ClassUtils.getAllInterfaces;
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
-import com.google.common.collect.Sets;
 import com.google.common.reflect.ClassPath;
-import ch.ifocusit.plantuml.classdiagram.model.Association;
+import ch.ifocusit.plantuml.classdiagram.bytecode.ClassFileSource;
+import ch.ifocusit.plantuml.classdiagram.bytecode.ClasspathIndex;
+import ch.ifocusit.plantuml.classdiagram.bytecode.ClasspathScanner;
+import ch.ifocusit.plantuml.classdiagram.bytecode.IndexedClass;
+import ch.ifocusit.plantuml.classdiagram.model.ClassAssociation;
 import ch.ifocusit.plantuml.classdiagram.model.ClassMember;
 import ch.ifocusit.plantuml.classdiagram.model.Package;
 import ch.ifocusit.plantuml.classdiagram.model.attribute.ClassAttribute;
@@ -55,6 +63,8 @@ import ch.ifocusit.plantuml.classdiagram.model.attribute.MethodAttribute;
 import ch.ifocusit.plantuml.classdiagram.model.clazz.Clazz;
 import ch.ifocusit.plantuml.classdiagram.model.clazz.JavaClazz;
 import ch.ifocusit.plantuml.classdiagram.model.method.ClassMethod;
+import ch.ifocusit.plantuml.classdiagram.snapshot.DiagramSnapshot;
+import ch.ifocusit.plantuml.utils.ClassMetadata;
 import ch.ifocusit.plantuml.utils.ClassUtils;
 
 /**
@@ -66,30 +76,119 @@ import ch.ifocusit.plantuml.utils.ClassUtils;
 public class ClassDiagramBuilder extends AbstractClassDiagramBuilder implements NamesMapper {
 
     private final Set<java.lang.Package> packages = new LinkedHashSet<>();
+    private final Set<String> packageNames = new LinkedHashSet<>();
+    private final List<Path> classpath = new ArrayList<>();
     private final Set<Class> classesRepository = new LinkedHashSet<>();
     private final Predicate<ClassAttribute> additionalFieldPredicate = a -> true; // always true by default
 
     private NamesMapper namesMapper = this;
 
+    private boolean packagesFromBytecode = false;
+
+    private Path classpathIndex;
+
+    // opened for the duration of a build when an external classpath is defined
+    private ClasspathScope scope;
+
+    // read once for all the diagrams of a DiagramBatch, null otherwise
+    private Map<String, Clazz[]> listedPackages;
+    private Map<Class, List<AssociationCandidate>> sharedCandidates;
+
     public static void writeDiagramToFile(String filename, Class<?>... classes) throws IOException {
         writeDiagramToFile(new File(filename), classes);
     }
 
     public static void writeDiagramToFile(File file, Class<?>... classes) throws IOException {
-        String diagram = new ClassDiagramBuilder().addClasses(classes).build();
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            writer.write(diagram);
-        }
+        writeDiagramToFile(file.toPath(), classes);
     }
 
+    /**
+     * The diagram is written to a temporary file first, the existing file is kept if the build
+     * fails.
+     */
     public static void writeDiagramToFile(Path path, Class<?>... classes) throws IOException {
-        String diagram = new ClassDiagramBuilder().addClasses(classes).build();
-        Files.write(path, diagram.getBytes());
+        Path directory = path.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, Charset.defaultCharset())) {
+                new ClassDiagramBuilder().addClasses(classes).writeTo(writer);
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
     }
 
     public ClassDiagramBuilder() {
     }
 
+    /**
+     * Builder restoring the configuration of <code>spec</code>, with a fresh build state.
+     */
+    public ClassDiagramBuilder(DiagramSpec spec) {
+        super(spec);
+        this.classesRepository.addAll(spec.getClasses());
+        this.packages.addAll(spec.getPackages());
+        this.packageNames.addAll(spec.getPackageNames());
+        this.classpath.addAll(spec.getClasspath());
+        this.namesMapper = spec.getNamesMapper().orElse(this);
+        this.packagesFromBytecode = spec.isReadPackagesFromBytecode();
+        this.classpathIndex = spec.getClasspathIndex().orElse(null);
+    }
+
+    /**
+     * @return an immutable snapshot of this builder configuration, to render with a
+     *         {@link DiagramEngine}
+     */
+    public DiagramSpec toSpec() {
+        return new DiagramSpec(this);
+    }
+
+    /**
+     * Reuse classes, links and packages content read by another builder with the same settings.
+     *
+     * @param candidates all the links of each class, see {@link #collectAllAssociations(JavaClazz)}
+     * @param packageClasses the classes of each package name
+     */
+    void share(Map<Class, JavaClazz> classes, Map<Class, List<AssociationCandidate>> candidates,
+            Map<String, Clazz[]> packageClasses) {
+        this.cache.putAll(classes);
+        this.sharedCandidates = candidates;
+        this.listedPackages = packageClasses;
+    }
+
+    Set<Class> getClasses() {
+        return classesRepository;
+    }
+
+    Set<java.lang.Package> getPackages() {
+        return packages;
+    }
+
+    Set<String> getPackageNames() {
+        return packageNames;
+    }
+
+    List<Path> getClasspath() {
+        return classpath;
+    }
+
+    NamesMapper getNamesMapper() {
+        return namesMapper;
+    }
+
+    boolean isReadPackagesFromBytecode() {
+        return packagesFromBytecode;
+    }
+
+    Path getClasspathIndex() {
+        return classpathIndex;
+    }
+
     public ClassDiagramBuilder addClasses(Iterable<Class> classes) {
         classes.forEach(this.classesRepository::add);
         return this;
@@ -105,103 +204,362 @@ public class ClassDiagramBuilder extends AbstractClassDiagramBuilder implements
         return this;
     }
 
+    /**
+     * Add packages by name, to diagram packages of the {@link #withClasspath(Path...) external
+     * classpath} that cannot be referenced as {@link java.lang.Package}.
+     */
+    public ClassDiagramBuilder addPackage(String... packageNames) {
+        this.packageNames.addAll(Arrays.asList(packageNames));
+        return this;
+    }
+
+    /**
+     * Read packages from jars and class directories instead of the context class loader. They are
+     * loaded in a {@link ClasspathScope} opened for each build and closed after it, so that their
+     * classes can be unloaded once the diagram is built.
+     */
+    public ClassDiagramBuilder withClasspath(Path... paths) {
+        return withClasspath(Arrays.asList(paths));
+    }
+
+    public ClassDiagramBuilder withClasspath(Collection<Path> paths) {
+        this.classpath.addAll(paths);
+        return this;
+    }
+
     public ClassDiagramBuilder withNamesMapper(NamesMapper namesMapper) {
         this.namesMapper = namesMapper;
+        cache.clear();
+        return this;
+    }
+
+    /**
+     * Read package classes from their class files instead of loading them. Static initializers are
+     * not run, but class names are not mapped by the {@link NamesMapper}.
+     */
+    public ClassDiagramBuilder readPackagesFromBytecode() {
+        this.packagesFromBytecode = true;
+        return this;
+    }
+
+    /**
+     * List package classes from a persistent classpath index stored in <code>indexFile</code>,
+     * updated with the changed classpath elements, instead of scanning the whole classpath.
+     *
+     * @see ClasspathIndex
+     */
+    public ClassDiagramBuilder withClasspathIndex(Path indexFile) {
+        this.classpathIndex = indexFile;
         return this;
     }
 
+    @Override
+    public <A extends Appendable> A build(A out) {
+        return inScope(() -> super.build(out));
+    }
+
+    /**
+     * Read the classes and detect their associations, like {@link #build()}, but copy them to a
+     * detached snapshot instead of rendering them. This builder keeps no build state afterwards.
+     */
+    public DiagramSnapshot snapshot() {
+        return inScope(() -> {
+            clazzes.clear();
+            detectedAssociations.clear();
+            readClasses();
+            detectAssociations();
+            DiagramSnapshot.Builder snapshot = DiagramSnapshot.builder().setStartOptions(getStartOptions())
+                    .setEndOptions(getEndOptions()).setHeader(getHeader()).setTitle(getTitle())
+                    .setFooter(getFooter());
+            listPackages((pkg, classes) -> snapshot.addPackage(pkg.getName(), classes));
+            clazzes.forEach(snapshot::addType);
+            detectedAssociations.stream().forEach(snapshot::addAssociation);
+            clazzes.clear();
+            detectedAssociations.clear();
+            return snapshot.build();
+        });
+    }
+
+    /**
+     * Run <code>step</code> in a scope over the external classpath, if one is defined.
+     */
+    private <T> T inScope(Supplier<T> step) {
+        if (classpath.isEmpty()) {
+            return step.get();
+        }
+        scope = ClasspathScope.open(classpath);
+        try {
+            return step.get();
+        } finally {
+            release(scope);
+            scope = null;
+        }
+    }
+
+    /**
+     * Drop any reference to the classes of a closed scope, so that they can be unloaded.
+     */
+    private void release(ClasspathScope closed) {
+        closed.close();
+        clazzes.clear();
+        detectedAssociations.clear();
+        cache.keySet().removeIf(closed::contains);
+        if (getFragmentCache() != null) {
+            getFragmentCache().invalidate(closed::contains);
+        }
+        if (namesMapper instanceof CachingNamesMapper) {
+            ((CachingNamesMapper) namesMapper).invalidate(closed::contains);
+        }
+        if (linkMaker instanceof CachingLinkMaker) {
+            ((CachingLinkMaker) linkMaker).invalidate(closed::contains);
+        }
+    }
+
+    @Override
+    FragmentCache.Settings getRenderSettings() {
+        FragmentCache.Settings settings = super.getRenderSettings();
+        return namesMapper == this && isDefaultBuilder() ? settings : settings.withNamesMapper(namesMapper);
+    }
+
+    @Override
+    boolean isDefaultBuilder() {
+        return getClass() == ClassDiagramBuilder.class;
+    }
+
+    private Set<String> getAllPackageNames() {
+        Set<String> names = new LinkedHashSet<>();
+        packages.forEach(pkg -> names.add(pkg.getName()));
+        names.addAll(packageNames);
+        return names;
+    }
+
     public void addPackages() {
-        packages.forEach(pkg -> {
-            try {
-                ClassPath classPath = ClassPath.from(Thread.currentThread().getContextClassLoader());
-                Clazz[] classes = classPath.getTopLevelClasses(pkg.getName()).stream()
-                        .map(ClassPath.ClassInfo::load).map(this::createJavaClass).sorted()
-                        .toArray(Clazz[]::new);
-                builder.addPackage(Package.from(pkg), classes);
-            } catch (IOException e) {
-                throw new IllegalStateException("Cannot load classesRepository from package " + pkg,
-                        e);
-            }
+        listPackages(builder::addPackage);
+    }
 
+    /**
+     * Pass each package with its classes to <code>consumer</code>, in a scope over the external
+     * classpath if one is defined.
+     */
+    void readPackages(BiConsumer<Package, Clazz[]> consumer) {
+        inScope(() -> {
+            listPackages(consumer);
+            return null;
         });
     }
 
+    /**
+     * Pass each package with its classes to <code>consumer</code>.
+     */
+    private void listPackages(BiConsumer<Package, Clazz[]> consumer) {
+        Set<String> allPackageNames = getAllPackageNames();
+        Set<String> packagesToScan = new LinkedHashSet<>(allPackageNames);
+        if (listedPackages != null) {
+            packagesToScan.removeAll(listedPackages.keySet());
+        }
+        Map<String, Clazz[]> scanned = packagesToScan.isEmpty() ? Map.of() : scanPackages(packagesToScan);
+        for (String pkg : allPackageNames) {
+            Clazz[] classes = scanned.containsKey(pkg) ? scanned.get(pkg) : listedPackages.get(pkg);
+            scannedClasses.addAndGet(classes.length);
+            consumer.accept(Package.from(pkg), classes);
+        }
+    }
+
+    /**
+     * @return the classes of each package, read from the classpath
+     */
+    private Map<String, Clazz[]> scanPackages(Set<String> allPackageNames) {
+        ClassLoader classLoader = scope != null ? scope.getClassLoader()
+                : Thread.currentThread().getContextClassLoader();
+        // the classpath is scanned, or its index opened, once for all packages
+        ClasspathIndex index;
+        ClassPath classPath = null;
+        ClasspathScanner scanner = null;
+        try {
+            index = classpathIndex == null ? null : ClasspathIndex.open(classpathIndex, classLoader);
+            if (index == null && packagesFromBytecode) {
+                scanner = ClasspathScanner.open(ClasspathIndex.classpathOf(classLoader), executor);
+            } else if (index == null) {
+                classPath = ClassPath.from(classLoader);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot scan the classpath of packages " + allPackageNames, e);
+        }
+        // the scanner jar buffers are dropped once the packages are read
+        try {
+            ClassFileSource classFileSource = new ClassFileSource(classLoader).withIndex(index)
+                    .withScanner(scanner);
+
+            Map<String, Clazz[]> packageClasses = new LinkedHashMap<>();
+            for (String pkg : allPackageNames) {
+                try {
+                    Clazz[] classes;
+                    if (packagesFromBytecode) {
+                        classes = classFileSource.listPackage(pkg).toArray(Clazz[]::new);
+                    } else if (index != null) {
+                        List<Class> loaded = new ArrayList<>();
+                        for (IndexedClass indexedClass : index.getTopLevelClasses(pkg)) {
+                            loaded.add(classLoader.loadClass(indexedClass.getName()));
+                        }
+                        classes = loaded.stream().map(this::createJavaClass).sorted().toArray(Clazz[]::new);
+                    } else {
+                        classes = classPath.getTopLevelClasses(pkg).stream()
+                                .map(ClassPath.ClassInfo::load).map(this::createJavaClass).sorted()
+                                .toArray(Clazz[]::new);
+                    }
+                    packageClasses.put(pkg, classes);
+                    checkpoint(BuildPhase.ADD_PACKAGES);
+                } catch (IOException | ClassNotFoundException e) {
+                    throw new IllegalStateException("Cannot load classesRepository from package " + pkg,
+                            e);
+                }
+            }
+            return packageClasses;
+        } finally {
+            if (scanner != null) {
+                scanner.close();
+            }
+        }
+    }
+
+    @Override
+    protected String getDiagramName() {
+        String title = super.getDiagramName();
+        if (title != null) {
+            return title;
+        }
+        // describe the content of an untitled diagram
+        String name = classesRepository.isEmpty() ? EMPTY
+                : ClassMetadata.of(classesRepository.iterator().next()).getSimpleName();
+        if (classesRepository.size() > 1) {
+            name += " +" + (classesRepository.size() - 1) + " classes";
+        }
+        Set<String> allPackageNames = getAllPackageNames();
+        if (!allPackageNames.isEmpty()) {
+            name += (name.isEmpty() ? EMPTY : ", ") + allPackageNames.iterator().next()
+                    + (allPackageNames.size() > 1 ? " +" + (allPackageNames.size() - 1) + " packages"
+                            : EMPTY);
+        }
+        return name;
+    }
+
     public boolean canAppearsInDiagram(Class aClass) {
-        return !"void".equals(aClass.getName()) && !aClass.getName().startsWith("java.")
-                && (withDependencies || classesRepository.contains(aClass));
+        return isLinkable(aClass) && (withDependencies || classesRepository.contains(aClass));
     }
 
     public void detectAssociations() {
-        // browse each defined classesRepository
-        clazzes.forEach(javaClazz -> {
-            // add inheritance associations
-            Stream.concat(Stream.of(javaClazz.getRelatedClass().getSuperclass()),
-                    getAllInterfaces(javaClazz.getRelatedClass()).stream()).filter(Objects::nonNull)
-                    // exclude class if not in repository
-                    .filter(this::canAppearsInDiagram)
-                    // create an association between current class and it's parent
-                    .forEach(hierarchicalClass -> {
-                        ClassAssociation assoc = new ClassAssociation();
-                        assoc.classB = javaClazz.getRelatedClass();
-                        assoc.classA = hierarchicalClass;
-                        assoc.setbName(namesMapper.getClassName(assoc.classB));
-                        assoc.setbCardinality(NONE);
-                        assoc.setaName(namesMapper.getClassName(assoc.classA));
-                        assoc.setaCardinality(NONE);
-                        assoc.setLabel(EMPTY);
-                        assoc.setType(INHERITANCE);
-
-                        detectedAssociations.add(assoc);
-                    });
-
-            // no field association if fields are hidden
-            if (!hideFields(javaClazz)) {
-                javaClazz.getAttributes().stream()
-                        .filter(attribute -> !attribute.getField().isEnumConstant())
-                        .forEach(classAttribute -> {
-                            classAttribute.getConcernedTypes().stream()
-                                    .filter(this::canAppearsInDiagram).forEach(classToLinkWith -> {
-                                        addOrUpdateAssociation(javaClazz.getRelatedClass(),
-                                                classToLinkWith, classAttribute);
-                                    });
-                        });
+        // collect links of each class, concurrently if an executor is defined
+        List<List<AssociationCandidate>> candidates = mapInOrder(clazzes, clazz -> {
+            List<AssociationCandidate> links = collectAssociations(clazz);
+            countPendingCandidates(links.size());
+            checkpoint(BuildPhase.DETECT_ASSOCIATIONS);
+            return links;
+        });
+        // then register them in classes order, so the result does not depend on threads
+        candidates.forEach(classCandidates -> {
+            registerAssociations(classCandidates, detectedAssociations);
+            countPendingCandidates(-classCandidates.size());
+        });
+    }
+
+    /**
+     * @return links from the class to the other classes, in detection order
+     */
+    List<AssociationCandidate> collectAssociations(JavaClazz javaClazz) {
+        List<AssociationCandidate> all = sharedCandidates == null ? null
+                : sharedCandidates.get(javaClazz.getRelatedClass());
+        return selectAssociations(javaClazz, all != null ? all : collectAllAssociations(javaClazz));
+    }
+
+    /**
+     * @return the links of the class shown by this diagram: members links are hidden with their
+     *         members, self links if {@link #hideSelfLink()}
+     */
+    private List<AssociationCandidate> selectAssociations(JavaClazz javaClazz,
+            List<AssociationCandidate> all) {
+        boolean hideFields = hideFields(javaClazz);
+        boolean hideMethods = hideMethods(javaClazz);
+        if (!hideFields && !hideMethods && !hideSelfLink) {
+            return all;
+        }
+        List<AssociationCandidate> candidates = new ArrayList<>(all.size());
+        for (AssociationCandidate candidate : all) {
+            boolean hidden = candidate.getKind() == AssociationCandidate.Kind.ATTRIBUTE ? hideFields
+                    : candidate.getKind() == AssociationCandidate.Kind.METHOD && hideMethods;
+            boolean selfLink = candidate.getKind() != AssociationCandidate.Kind.INHERITANCE
+                    && candidate.getOrigin().equals(candidate.getTarget());
+            if (!hidden && !(hideSelfLink && selfLink)) {
+                candidates.add(candidate);
             }
+        }
+        return candidates;
+    }
 
-            // no method association if methods are hidden
-            if (!hideMethods(javaClazz)) {
-                javaClazz.getMethods().forEach(classMethod -> {
-                    classMethod.getParameters().ifPresent(methodAttributes -> {
-                        Stream.of(methodAttributes).forEach(methodAttribute -> {
-                            methodAttribute.getConcernedTypes().stream()
-                                    .filter(this::canAppearsInDiagram).forEach(classToLinkWith -> {
-                                        addOrUpdateAssociation(javaClazz.getRelatedClass(),
-                                                classToLinkWith, methodAttribute);
-                                    });
-                        });
-                    });
-                    classMethod.getConcernedReturnedTypes().stream()
-                            .filter(this::canAppearsInDiagram).forEach(classToLinkWith -> {
-                                addOrUpdateAssociation(javaClazz.getRelatedClass(), classToLinkWith,
-                                        classMethod);
-                            });
+    /**
+     * @return all the links from the class to the other classes, whatever the diagram options, in
+     *         detection order
+     */
+    List<AssociationCandidate> collectAllAssociations(JavaClazz javaClazz) {
+        List<AssociationCandidate> candidates = new ArrayList<>();
+        Class relatedClass = javaClazz.getRelatedClass();
+
+        // add inheritance associations
+        ClassMetadata metadata = ClassMetadata.of(relatedClass);
+        Stream.concat(Stream.of(metadata.getSuperclass()), metadata.getAllInterfaces().stream())
+                .filter(Objects::nonNull)
+                // exclude java types
+                .filter(this::isLinkable)
+                // create an association between current class and it's parent
+                .forEach(hierarchicalClass -> candidates
+                        .add(AssociationCandidate.inheritance(relatedClass, hierarchicalClass)));
+
+        javaClazz.getAttributes().stream()
+                .filter(attribute -> !attribute.getField().isEnumConstant())
+                .forEach(classAttribute -> {
+                    classAttribute.getConcernedTypes().stream().filter(this::isLinkable)
+                            .forEach(classToLinkWith -> addCandidate(candidates, relatedClass,
+                                    classToLinkWith, classAttribute));
                 });
-            }
+
+        javaClazz.getMethods().forEach(classMethod -> {
+            classMethod.getParameters().ifPresent(methodAttributes -> {
+                Stream.of(methodAttributes).forEach(methodAttribute -> {
+                    methodAttribute.getConcernedTypes().stream().filter(this::isLinkable)
+                            .forEach(classToLinkWith -> addCandidate(candidates, relatedClass,
+                                    classToLinkWith, methodAttribute));
+                });
+            });
+            classMethod.getConcernedReturnedTypes().stream().filter(this::isLinkable)
+                    .forEach(classToLinkWith -> addCandidate(candidates, relatedClass,
+                            classToLinkWith, classMethod));
         });
+        return candidates;
     }
 
-    private void addOrUpdateAssociation(Class originClass, Class classToLinkWith,
-            ClassMember classMember) {
+    /**
+     * Register the links of a class whose target can appear in the diagram.
+     */
+    void registerAssociations(List<AssociationCandidate> candidates, AssociationRegistry registry) {
+        candidates.forEach(candidate -> registerAssociation(candidate, registry));
+    }
 
-        // hide inner link
-        if (hideSelfLink && originClass.equals(classToLinkWith)) {
-            return; // do not add this link
+    /**
+     * @return the association the link was registered in, empty if its target cannot appear in the
+     *         diagram
+     */
+    Optional<ClassAssociation> registerAssociation(AssociationCandidate candidate, AssociationRegistry registry) {
+        if (!canAppearsInDiagram(candidate.getTarget())) {
+            return Optional.empty();
         }
+        return Optional.of(candidate.registerIn(registry, namesMapper::getClassName));
+    }
 
-        // look for an existing association
-        Optional<Association> existing = detectedAssociations.stream()
-                .filter(assoc -> ((ClassAssociation) assoc).concern(originClass, classToLinkWith))
-                .findFirst();
+    private boolean isLinkable(Class aClass) {
+        return !"void".equals(aClass.getName()) && !aClass.getName().startsWith("java.");
+    }
 
+    private void addCandidate(List<AssociationCandidate> candidates, Class originClass,
+            Class classToLinkWith, ClassMember classMember) {
         Class typeWithGeneric = classMember.getType();
 
         String label = "use";
@@ -212,50 +570,51 @@ public class ClassDiagramBuilder extends AbstractClassDiagramBuilder implements
             label = classMember.getName();
         }
 
-        if (existing.isPresent()) {
-            if (((ClassAssociation) existing.get()).isNoSameOrigin(originClass))
-                // do not add the second attribut to the association collection
-                // mark attribute as bidirectional
-                ((ClassAssociation) existing.get()).setBidirectional();
-            if (classMember instanceof ClassAttribute) {
-                // update cardinality
-                existing.get()
-                        .setaCardinality(ClassUtils.isCollection(typeWithGeneric) ? MANY : NONE);
-                // change name
-                existing.get().setLabel(existing.get().getLabel() + "/" + label);
-            }
-        } else {
-            // add association with this class
-            ClassAssociation assoc = new ClassAssociation();
-            assoc.classA = originClass;
-            assoc.setaName(namesMapper.getClassName(assoc.classA));
-            assoc.setaCardinality(ClassUtils.isCollection(assoc.classA) ? MANY : NONE);
-            assoc.classB = classToLinkWith;
-            assoc.setbName(namesMapper.getClassName(assoc.classB));
-            assoc.setbCardinality(ClassUtils.isCollection(typeWithGeneric) ? MANY : NONE);
-            assoc.setLabel(label);
-            assoc.setType(DIRECTION);
-            detectedAssociations.add(assoc);
-        }
+        candidates.add(AssociationCandidate.member(
+                classMember instanceof ClassAttribute ? AssociationCandidate.Kind.ATTRIBUTE
+                        : AssociationCandidate.Kind.METHOD,
+                originClass, classToLinkWith, label,
+                ClassUtils.isCollection(typeWithGeneric) ? MANY : NONE));
     }
 
     public void readClasses() {
         // add all classesRepository definition
         // readFields will manage field type definition, exclusions, ...
-        classesRepository.forEach(clazz -> clazzes.add(createJavaClass(clazz)));
+        // classes are read concurrently if an executor is defined, then sorted
+        scannedClasses.addAndGet(classesRepository.size());
+        clazzes.addAll(mapInOrder(classesRepository, clazz -> {
+            JavaClazz javaClazz = createJavaClass(clazz);
+            checkpoint(BuildPhase.READ_CLASSES);
+            return javaClazz;
+        }));
     }
 
     public JavaClazz createJavaClass(Class clazz) {
-        return JavaClazz.from(clazz, readFields(clazz), readMethods(clazz))
+        JavaClazz cached = cache.get(clazz);
+        if (cached != null) {
+            cacheHits.incrementAndGet();
+            return cached;
+        }
+        return cache.computeIfAbsent(clazz, this::readJavaClass);
+    }
+
+    private JavaClazz readJavaClass(Class clazz) {
+        cacheMisses.incrementAndGet();
+        ClassAttribute[] fields = readFields(clazz);
+        ClassMethod[] methods = readMethods(clazz);
+        readMembers.addAndGet(fields.length + methods.length);
+        return JavaClazz.from(clazz, fields, methods)
                 .setOverridedName(namesMapper.getClassName(clazz))
                 .setLink(linkMaker.getClassLink(clazz).orElse(null));
     }
 
     public ClassMethod[] readMethods(Class aClass) {
-        return Stream.of(aClass.getDeclaredMethods())
+        return ClassMetadata.of(aClass).getDeclaredMethods().stream()
                 // only public and non static methods
                 .filter(method -> !Modifier.isStatic(method.getModifiers())
                         && Modifier.isPublic(method.getModifiers()))
+                // excludes matching methods
+                .filter(method -> !isExcluded(method))
                 .map(this::createClassMethod)
                 // excludes specific fields
                 .filter(filterMethods()).sorted().toArray(ClassMethod[]::new);
@@ -269,12 +628,14 @@ public class ClassDiagramBuilder extends AbstractClassDiagramBuilder implements
     }
 
     public ClassAttribute[] readFields(Class aClass) {
-        return Stream.of(aClass.getDeclaredFields())
+        return ClassMetadata.of(aClass).getDeclaredFields().stream()
                 // exclude inner class
                 .filter(field -> !field.getName().startsWith(DOLLAR))
                 // exclude static fields
                 .filter(field -> field.getDeclaringClass().isEnum()
                         || !Modifier.isStatic(field.getModifiers()))
+                // excludes matching fields
+                .filter(field -> !isExcluded(field))
                 .map(this::createClassAttribute)
                 // excludes specific fields
                 .filter(filterFields()).toArray(ClassAttribute[]::new);
@@ -285,33 +646,4 @@ public class ClassDiagramBuilder extends AbstractClassDiagramBuilder implements
         attribute.setLink(linkMaker.getFieldLink(field).orElse(null));
         return attribute;
     }
-
-    private static class ClassAssociation extends Association
-            implements Comparable<ClassAssociation> {
-        private Class classA;
-        private Class classB;
-
-        public void setBidirectional() {
-            type = BI_DIRECTION;
-        }
-
-        public boolean concern(Class otherA, Class otherB) {
-            return Sets
-                    .intersection(Sets.newHashSet(classA, classB), Sets.newHashSet(otherA, otherB))
-                    .size() == 2;
-        }
-
-        @Override
-        public int compareTo(final ClassAssociation o) {
-            return getKey().compareTo(o.getKey());
-        }
-
-        private String getKey() {
-            return aName + bName;
-        }
-
-        public boolean isNoSameOrigin(final Class initialClass) {
-            return !classA.equals(initialClass);
-        }
-    }
 }
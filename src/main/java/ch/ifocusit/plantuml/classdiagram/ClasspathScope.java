@@ -0,0 +1,93 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Class loader scope over jars and class directories outside of the application classpath.
+ * <p>
+ * Classes are loaded by a dedicated loader whose parent is the platform class loader: only the
+ * scope paths and the JDK are visible, application classes never shadow the scanned ones. Once the
+ * scope is closed and the diagram built, nothing references the loaded classes, which can then be
+ * unloaded with their loader.
+ *
+ * @author Julien Boz
+ */
+public final class ClasspathScope implements Closeable {
+
+    private final List<Path> classpath;
+    private final URLClassLoader classLoader;
+
+    private ClasspathScope(List<Path> classpath, URLClassLoader classLoader) {
+        this.classpath = classpath;
+        this.classLoader = classLoader;
+    }
+
+    public static ClasspathScope open(List<Path> classpath) {
+        URL[] urls = new URL[classpath.size()];
+        for (int i = 0; i < urls.length; i++) {
+            try {
+                urls[i] = classpath.get(i).toUri().toURL();
+            } catch (MalformedURLException e) {
+                throw new IllegalArgumentException("Invalid classpath element " + classpath.get(i), e);
+            }
+        }
+        return new ClasspathScope(List.copyOf(classpath),
+                new URLClassLoader(urls, ClassLoader.getPlatformClassLoader()));
+    }
+
+    public List<Path> getClasspath() {
+        return classpath;
+    }
+
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    /**
+     * @return true if the class was loaded from this scope
+     */
+    public boolean contains(Class<?> aClass) {
+        return aClass.getClassLoader() == classLoader;
+    }
+
+    /**
+     * Close the opened jars. Already loaded classes stay usable, new ones cannot be loaded.
+     */
+    @Override
+    public void close() {
+        try {
+            classLoader.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import org.apache.commons.lang3.Validate;
+import ch.ifocusit.plantuml.classdiagram.model.clazz.Clazz;
+import ch.ifocusit.plantuml.classdiagram.model.clazz.JavaClazz;
+
+/**
+ * Render many diagrams in one pass.
+ * <p>
+ * Diagrams reading classes the same way (same mappers, predicates, exclusions and packages listing)
+ * share their work: the union of their classes and packages is read once, the links of each class
+ * are collected once, then each diagram only keeps the classes and links it shows. Diagrams are
+ * then rendered concurrently if an executor is given. The rendered diagrams are the same as the
+ * ones built separately from each spec.
+ * <p>
+ * Specs with an external classpath are rendered alone, each render opening its own
+ * {@link ClasspathScope}.
+ *
+ * @author Julien Boz
+ */
+@SuppressWarnings("rawtypes")
+public class DiagramBatch {
+
+    private final Executor executor;
+    private final Map<String, DiagramSpec> specs = new LinkedHashMap<>();
+
+    /**
+     * Batch rendering diagrams on the calling thread.
+     */
+    public DiagramBatch() {
+        this(null);
+    }
+
+    /**
+     * Batch reading classes and rendering diagrams concurrently on <code>executor</code>, if not
+     * null.
+     */
+    public DiagramBatch(Executor executor) {
+        this.executor = executor;
+    }
+
+    public DiagramBatch add(String name, DiagramSpec spec) {
+        Validate.notNull(name, "No diagram name defined !");
+        Validate.notNull(spec, "No spec defined !");
+        Validate.isTrue(!specs.containsKey(name), "Diagram '%s' already defined !", name);
+        specs.put(name, spec);
+        return this;
+    }
+
+    /**
+     * @return each diagram by name, in adding order
+     */
+    public Map<String, String> render() {
+        Map<Group, List<ClassDiagramBuilder>> groups = new LinkedHashMap<>();
+        List<ClassDiagramBuilder> builders = new ArrayList<>();
+        specs.values().forEach(spec -> {
+            ClassDiagramBuilder builder = spec.toBuilder();
+            builders.add(builder);
+            if (spec.getClasspath().isEmpty()) {
+                groups.computeIfAbsent(new Group(spec, builder), group -> new ArrayList<>()).add(builder);
+            }
+        });
+        groups.values().stream().filter(group -> group.size() > 1).forEach(this::share);
+
+        ClassDiagramBuilder renderer = new ClassDiagramBuilder().withExecutor(executor);
+        List<String> diagrams = renderer.mapInOrder(builders, ClassDiagramBuilder::build);
+        Map<String, String> result = new LinkedHashMap<>();
+        int i = 0;
+        for (String name : specs.keySet()) {
+            result.put(name, diagrams.get(i++));
+        }
+        return result;
+    }
+
+    /**
+     * Read once the classes, links and packages of all the diagrams of a group.
+     */
+    private void share(List<ClassDiagramBuilder> group) {
+        Set<Class> classes = new LinkedHashSet<>();
+        Set<String> packageNames = new LinkedHashSet<>();
+        group.forEach(builder -> {
+            classes.addAll(builder.getClasses());
+            builder.getPackages().forEach(pkg -> packageNames.add(pkg.getName()));
+            packageNames.addAll(builder.getPackageNames());
+        });
+
+        // any builder of the group reads classes like the others
+        ClassDiagramBuilder reader = group.get(0).toSpec().toBuilder().withExecutor(executor);
+        reader.getPackages().clear();
+        reader.getPackageNames().clear();
+        reader.getPackageNames().addAll(packageNames);
+        Map<String, Clazz[]> packageClasses = new HashMap<>();
+        reader.readPackages((pkg, content) -> packageClasses.put(pkg.getName(), content));
+
+        List<JavaClazz> clazzes = reader.mapInOrder(classes, reader::createJavaClass);
+        List<List<AssociationCandidate>> links = reader.mapInOrder(clazzes, reader::collectAllAssociations);
+        Map<Class, List<AssociationCandidate>> candidates = new HashMap<>();
+        for (int i = 0; i < clazzes.size(); i++) {
+            candidates.put(clazzes.get(i).getRelatedClass(), links.get(i));
+        }
+        group.forEach(builder -> builder.share(reader.cache, candidates, packageClasses));
+    }
+
+    /**
+     * Diagrams whose classes and packages content can be shared.
+     */
+    private static final class Group {
+        private final FragmentCache.Settings settings;
+        private final boolean packagesFromBytecode;
+        private final Path classpathIndex;
+
+        private Group(DiagramSpec spec, ClassDiagramBuilder builder) {
+            this.settings = builder.getRenderSettings();
+            this.packagesFromBytecode = spec.isReadPackagesFromBytecode();
+            this.classpathIndex = spec.getClasspathIndex().orElse(null);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Group)) {
+                return false;
+            }
+            Group other = (Group) o;
+            return settings.equals(other.settings) && packagesFromBytecode == other.packagesFromBytecode
+                    && Objects.equals(classpathIndex, other.classpathIndex);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(settings, packagesFromBytecode, classpathIndex);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Changes of a diagram rendered by a {@link DiagramSession}, since its previous update.
+ * <p>
+ * Types are identified by their diagram name. Associations are rendered lines, each one is either
+ * removed or added: a changed association is removed then added.
+ *
+ * @author Julien Boz
+ */
+public final class DiagramDelta {
+
+    private final List<String> removedTypes;
+    private final Map<String, String> updatedTypes;
+    private final List<String> removedAssociations;
+    private final List<String> addedAssociations;
+
+    DiagramDelta(List<String> removedTypes, Map<String, String> updatedTypes,
+            List<String> removedAssociations, List<String> addedAssociations) {
+        this.removedTypes = List.copyOf(removedTypes);
+        this.updatedTypes = updatedTypes;
+        this.removedAssociations = List.copyOf(removedAssociations);
+        this.addedAssociations = List.copyOf(addedAssociations);
+    }
+
+    /**
+     * @return the names of the types no longer in the diagram
+     */
+    public List<String> getRemovedTypes() {
+        return removedTypes;
+    }
+
+    /**
+     * @return the rendered definition of the added or changed types, by name, in diagram order
+     */
+    public Map<String, String> getUpdatedTypes() {
+        return updatedTypes;
+    }
+
+    public List<String> getRemovedAssociations() {
+        return removedAssociations;
+    }
+
+    public List<String> getAddedAssociations() {
+        return addedAssociations;
+    }
+
+    /**
+     * @return true if the rendered diagram did not change
+     */
+    public boolean isEmpty() {
+        return removedTypes.isEmpty() && updatedTypes.isEmpty() && removedAssociations.isEmpty()
+                && addedAssociations.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "-" + removedTypes + " ~" + updatedTypes.keySet() + " associations -"
+                + removedAssociations.size() + " +" + addedAssociations.size();
+    }
+}
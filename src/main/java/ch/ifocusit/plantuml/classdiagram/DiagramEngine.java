@@ -0,0 +1,66 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import java.util.concurrent.Executor;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Render {@link DiagramSpec}s. The engine holds no build state: each render works on its own
+ * builder, so one engine can be shared and used concurrently. Class metadata read by previous
+ * renders is reused.
+ *
+ * @author Julien Boz
+ */
+public class DiagramEngine {
+
+    private final Executor executor;
+
+    /**
+     * Engine extracting classes on the calling thread.
+     */
+    public DiagramEngine() {
+        this.executor = null;
+    }
+
+    /**
+     * Engine extracting classes concurrently on <code>executor</code>.
+     */
+    public DiagramEngine(Executor executor) {
+        this.executor = Validate.notNull(executor, "No executor defined !");
+    }
+
+    public String render(DiagramSpec spec) {
+        return render(spec, new StringBuilder()).toString();
+    }
+
+    /**
+     * Render the diagram to <code>out</code>, element by element.
+     *
+     * @return <code>out</code>
+     */
+    public <A extends Appendable> A render(DiagramSpec spec, A out) {
+        Validate.notNull(spec, "No spec defined !");
+        return spec.toBuilder().withExecutor(executor).build(out);
+    }
+}
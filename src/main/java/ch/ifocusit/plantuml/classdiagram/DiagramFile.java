@@ -0,0 +1,318 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Reproducible diagram files: the diagram is always written in UTF-8 with <code>\n</code> line
+ * endings, whatever the platform and the line endings of headers, titles or footers, so the same
+ * diagram gives the same bytes on every machine.
+ * <p>
+ * The SHA-256 of the content is computed while the diagram is rendered. The file is only replaced,
+ * atomically, when its content changes: an unchanged diagram keeps its file and its modification
+ * time, and downstream caches keyed by the content hash stay valid. The rendered bytes are compared
+ * with the existing file while the diagram is rendered, and a temporary file is only created at the
+ * first difference, so an unchanged diagram is neither written nor touches its directory.
+ *
+ * @author Julien Boz
+ */
+public final class DiagramFile {
+
+    public static final Charset CHARSET = StandardCharsets.UTF_8;
+
+    private static final char CR = '\r';
+    private static final char LF = '\n';
+
+    private DiagramFile() {
+    }
+
+    /**
+     * Build the diagram and write it to <code>file</code> if its content changed.
+     */
+    public static Result write(AbstractClassDiagramBuilder builder, Path file) throws IOException {
+        ComparingOutputStream content = new ComparingOutputStream(file);
+        try {
+            MessageDigest digest = newDigest();
+            try (Writer writer = new LineFeedWriter(new OutputStreamWriter(new DigestOutputStream(
+                    new BufferedOutputStream(content), digest), CHARSET))) {
+                builder.writeTo(writer);
+            }
+            String hash = toHex(digest.digest());
+            if (content.temp == null) {
+                return new Result(file, hash, false);
+            }
+            try {
+                Files.move(content.temp, file, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(content.temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new Result(file, hash, true);
+        } finally {
+            if (content.temp != null) {
+                Files.deleteIfExists(content.temp);
+            }
+        }
+    }
+
+    /**
+     * @return the hexadecimal SHA-256 of the file content
+     */
+    public static String contentHash(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file)) {
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Outcome of a {@link #write(AbstractClassDiagramBuilder, Path)}.
+     */
+    public static final class Result {
+        private final Path file;
+        private final String contentHash;
+        private final boolean changed;
+
+        private Result(Path file, String contentHash, boolean changed) {
+            this.file = file;
+            this.contentHash = contentHash;
+            this.changed = changed;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * @return the hexadecimal SHA-256 of the diagram
+         */
+        public String getContentHash() {
+            return contentHash;
+        }
+
+        /**
+         * @return the strong HTTP entity tag of the diagram, the quoted content hash
+         */
+        public String getETag() {
+            return '"' + contentHash + '"';
+        }
+
+        /**
+         * @return false if the file already had this content and was not written
+         */
+        public boolean isChanged() {
+            return changed;
+        }
+
+        @Override
+        public String toString() {
+            return file + (changed ? " written " : " unchanged ") + getETag();
+        }
+    }
+
+    /**
+     * Compare the written bytes with the existing file, and only write them to a temporary file
+     * from the first difference, the same prefix being copied from the existing file.
+     */
+    private static final class ComparingOutputStream extends OutputStream {
+        private final Path file;
+        // existing content not compared yet, null once a difference is found
+        private InputStream existing;
+        // bytes equal to the existing content
+        private long matched;
+        // temporary file, null while the content is the same
+        private Path temp;
+        private OutputStream out;
+
+        private ComparingOutputStream(Path file) throws IOException {
+            this.file = file;
+            if (Files.isRegularFile(file)) {
+                existing = new BufferedInputStream(Files.newInputStream(file));
+            } else {
+                diverge();
+            }
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (existing != null && existing.read() == b) {
+                matched++;
+                return;
+            }
+            diverge();
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            int same = 0;
+            if (existing != null) {
+                byte[] expected = existing.readNBytes(length);
+                int mismatch = Arrays.mismatch(bytes, offset, offset + length, expected, 0, expected.length);
+                same = mismatch < 0 ? length : mismatch;
+                matched += same;
+            }
+            if (same < length) {
+                diverge();
+                out.write(bytes, offset + same, length - same);
+            }
+        }
+
+        /**
+         * Create the temporary file, starting with the bytes equal to the existing content.
+         */
+        private void diverge() throws IOException {
+            if (out != null) {
+                return;
+            }
+            if (existing != null) {
+                existing.close();
+                existing = null;
+            }
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            out = new BufferedOutputStream(Files.newOutputStream(temp));
+            if (matched > 0) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    byte[] buffer = new byte[8192];
+                    for (long remaining = matched; remaining > 0;) {
+                        int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                        if (read < 0) {
+                            throw new IOException(file + " changed while compared");
+                        }
+                        out.write(buffer, 0, read);
+                        remaining -= read;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            // a longer existing file is a difference
+            if (existing != null && existing.read() >= 0) {
+                diverge();
+            }
+            if (existing != null) {
+                existing.close();
+            }
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Replace <code>\r\n</code> and <code>\r</code> line endings by <code>\n</code>.
+     */
+    private static final class LineFeedWriter extends Writer {
+        private final Writer out;
+        // a \n following a \r already written as \n is skipped, even in the next write
+        private boolean afterCr;
+
+        private LineFeedWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            int start = offset;
+            int end = offset + length;
+            for (int i = offset; i < end; i++) {
+                char c = chars[i];
+                if (c == CR) {
+                    out.write(chars, start, i - start);
+                    out.write(LF);
+                    start = i + 1;
+                } else if (c == LF && afterCr) {
+                    out.write(chars, start, i - start);
+                    start = i + 1;
+                }
+                afterCr = c == CR;
+            }
+            out.write(chars, start, end - start);
+        }
+
+        @Override
+        public void write(String value, int offset, int length) throws IOException {
+            char[] chars = new char[length];
+            value.getChars(offset, offset + length, chars, 0);
+            write(chars, 0, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Publish a diagram as chunks of text: the start of the diagram, each package, each type, batches
+ * of associations, then the end of the diagram. The concatenated chunks are the diagram built from
+ * the spec.
+ * <p>
+ * Each subscription builds the diagram on <code>executor</code>. The build renders a chunk only
+ * when the subscriber requested it, waiting otherwise: a slow subscriber never holds more than one
+ * chunk in memory. The start of the diagram is published before its classes are read. As the
+ * building thread waits for the demand, use an executor with enough threads for the concurrent
+ * subscriptions.
+ *
+ * @author Julien Boz
+ */
+public class DiagramPublisher implements Flow.Publisher<String> {
+
+    public static final int DEFAULT_ASSOCIATIONS_BATCH = 64;
+
+    private final DiagramSpec spec;
+    private final Executor executor;
+    private final int associationsBatch;
+
+    public DiagramPublisher(DiagramSpec spec, Executor executor) {
+        this(spec, executor, DEFAULT_ASSOCIATIONS_BATCH);
+    }
+
+    /**
+     * @param associationsBatch the number of associations per chunk
+     */
+    public DiagramPublisher(DiagramSpec spec, Executor executor, int associationsBatch) {
+        Validate.notNull(spec, "No spec defined !");
+        Validate.notNull(executor, "No executor defined !");
+        Validate.isTrue(associationsBatch > 0, "Associations batch must be positive !");
+        this.spec = spec;
+        this.executor = executor;
+        this.associationsBatch = associationsBatch;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super String> subscriber) {
+        Validate.notNull(subscriber, "No subscriber defined !");
+        ChunkSubscription subscription = new ChunkSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        try {
+            executor.execute(subscription::run);
+        } catch (RejectedExecutionException e) {
+            subscriber.onError(e);
+        }
+    }
+
+    /**
+     * Sink of the build, passing each rendered element to the subscriber as soon as it is requested.
+     */
+    private final class ChunkSubscription implements Flow.Subscription, Appendable, BuildListener {
+        private final Flow.Subscriber<? super String> subscriber;
+        // guarded by this
+        private long demand;
+        private boolean cancelled;
+        private Throwable error;
+        // rendered associations not published yet, only used by the building thread
+        private final StringBuilder batch = new StringBuilder();
+        private int batched;
+        private boolean inAssociations;
+
+        private ChunkSubscription(Flow.Subscriber<? super String> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public synchronized void request(long n) {
+            if (n <= 0) {
+                // signaled by the building thread, like the other signals
+                error = new IllegalArgumentException("Requested chunks must be positive: " + n);
+                cancelled = true;
+            } else {
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            }
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void cancel() {
+            cancelled = true;
+            notifyAll();
+        }
+
+        private void run() {
+            try {
+                spec.toBuilder().withBuildListener(this).build(this);
+                publishBatch();
+            } catch (Throwable e) {
+                Throwable failure = stopped() ? error : e;
+                if (failure != null) {
+                    subscriber.onError(failure);
+                }
+                return;
+            }
+            subscriber.onComplete();
+        }
+
+        private synchronized boolean stopped() {
+            return cancelled;
+        }
+
+        @Override
+        public void phaseCompleted(PhaseMetrics metrics) {
+            if (metrics.getPhase() == BuildPhase.ADD_TYPES) {
+                inAssociations = true;
+            } else if (metrics.getPhase() == BuildPhase.ADD_ASSOCIATIONS) {
+                inAssociations = false;
+                publishBatch();
+            }
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) {
+            if (!inAssociations) {
+                publish(csq.toString());
+                return this;
+            }
+            batch.append(csq);
+            if (++batched == associationsBatch) {
+                publishBatch();
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            return append(csq.subSequence(start, end));
+        }
+
+        @Override
+        public Appendable append(char c) {
+            return append(String.valueOf(c));
+        }
+
+        private void publishBatch() {
+            if (batched > 0) {
+                publish(batch.toString());
+                batch.setLength(0);
+                batched = 0;
+            }
+        }
+
+        private void publish(String chunk) {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            synchronized (this) {
+                while (demand == 0 && !cancelled) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        error = e;
+                        cancelled = true;
+                    }
+                }
+                if (cancelled) {
+                    // stop the build
+                    throw new IllegalStateException("Subscription cancelled");
+                }
+                demand--;
+            }
+            subscriber.onNext(chunk);
+        }
+    }
+}
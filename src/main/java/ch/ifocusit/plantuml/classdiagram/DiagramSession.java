@@ -0,0 +1,351 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.Validate;
+import ch.ifocusit.plantuml.PlantUmlBuilder;
+import ch.ifocusit.plantuml.classdiagram.model.ClassAssociation;
+import ch.ifocusit.plantuml.classdiagram.model.clazz.JavaClazz;
+
+/**
+ * Long-lived diagram whose classes are added, removed or replaced over time.
+ * <p>
+ * The session keeps, for each class, its rendered definition and the links found in its members.
+ * An update only reads and renders the changed classes. As links are only merged between the same
+ * two classes, associations are kept by pair of classes: only the pairs including a changed class
+ * are registered again from the kept links, without reflection, and the diagram can be rendered
+ * again as a whole or as a {@link DiagramDelta}. The rendered diagram is always the same as the one
+ * built from the session classes by a {@link ClassDiagramBuilder}.
+ * <p>
+ * Links target classes by name: a replaced class keeps the links of the other classes to it, even
+ * if they were read from its previous version.
+ * <p>
+ * Packages, header, title and footer are rendered once, when the session is opened. A session is
+ * not thread-safe, classes of an update are read concurrently if an executor is given.
+ *
+ * @author Julien Boz
+ */
+@SuppressWarnings("rawtypes")
+public class DiagramSession {
+
+    private final ClassDiagramBuilder builder;
+    private final String prologue;
+    private final String epilogue;
+    // session classes, in diagram order
+    private final NavigableMap<JavaClazz, Entry> entries = new TreeMap<>();
+    private final Map<Class, JavaClazz> clazzes = new HashMap<>();
+    // session entries by class name
+    private final Map<String, Entry> classNames = new HashMap<>();
+    // rendered associations, in diagram order
+    private final NavigableMap<Rank, String> associations = new TreeMap<>();
+    // ranks of the associations between each unordered pair of class names
+    private final Map<Set<String>, List<Rank>> pairs = new HashMap<>();
+    // pairs linking each class name, through its own links or links targeting it
+    private final Map<String, Set<Set<String>>> pairsByClass = new HashMap<>();
+
+    /**
+     * Session reading classes on the calling thread.
+     */
+    public DiagramSession(DiagramSpec spec) {
+        this(spec, null);
+    }
+
+    /**
+     * Session reading the classes of each update concurrently on <code>executor</code>, if not null.
+     */
+    public DiagramSession(DiagramSpec spec, Executor executor) {
+        Validate.notNull(spec, "No spec defined !");
+        this.builder = spec.toBuilder().withExecutor(executor);
+
+        PlantUmlBuilder start = new PlantUmlBuilder();
+        start.start(builder.getStartOptions());
+        start.appendHeader(builder.getHeader());
+        start.appendTitle(builder.getTitle());
+        builder.readPackages(start::addPackage);
+        this.prologue = start.build();
+        PlantUmlBuilder end = new PlantUmlBuilder();
+        end.appendFooter(builder.getFooter());
+        end.end(builder.getEndOptions());
+        this.epilogue = end.build();
+
+        List<Class> initial = new ArrayList<>(builder.getClasses());
+        builder.getClasses().clear();
+        update(List.of(), initial);
+    }
+
+    public DiagramDelta addClasses(Class... classes) {
+        return update(List.of(), Arrays.asList(classes));
+    }
+
+    public DiagramDelta removeClasses(Class... classes) {
+        return update(Arrays.asList(classes), List.of());
+    }
+
+    /**
+     * Replace a class by another version of it, loaded by another class loader.
+     */
+    public DiagramDelta replaceClass(Class previous, Class current) {
+        return update(List.of(previous), List.of(current));
+    }
+
+    /**
+     * Remove then add classes. Only the added classes are read and rendered.
+     *
+     * @return the changes of the rendered diagram
+     */
+    public DiagramDelta update(Collection<Class> removed, Collection<Class> added) {
+        // definitions of the removed types, to detect unchanged ones added again
+        Map<String, String> previousFragments = new HashMap<>();
+        Set<String> changedClassNames = new HashSet<>();
+        for (Class aClass : removed) {
+            builder.getClasses().remove(aClass);
+            builder.cache.remove(aClass);
+            JavaClazz clazz = clazzes.remove(aClass);
+            if (clazz != null) {
+                previousFragments.put(clazz.getName(), entries.remove(clazz).fragment);
+                classNames.remove(aClass.getName());
+                changedClassNames.add(aClass.getName());
+            }
+        }
+
+        List<Class> newClasses = new ArrayList<>(new LinkedHashSet<>(added));
+        newClasses.removeIf(clazzes::containsKey);
+        builder.getClasses().addAll(newClasses);
+        // added classes are read concurrently if an executor is defined
+        List<Entry> read = builder.mapInOrder(newClasses, this::read);
+        Map<String, String> updatedTypes = new TreeMap<>();
+        for (Entry entry : read) {
+            // like the builder, the first class of a given name wins
+            if (entries.putIfAbsent(entry.clazz, entry) == null) {
+                Class aClass = entry.clazz.getRelatedClass();
+                clazzes.put(aClass, entry.clazz);
+                classNames.put(aClass.getName(), entry);
+                changedClassNames.add(aClass.getName());
+                entry.candidates.forEach(candidate -> {
+                    Set<String> pair = pairOf(candidate);
+                    pair.forEach(name -> pairsByClass.computeIfAbsent(name, key -> new HashSet<>()).add(pair));
+                });
+                String name = entry.clazz.getName();
+                if (!entry.fragment.equals(previousFragments.remove(name))) {
+                    updatedTypes.put(name, entry.fragment);
+                }
+            }
+        }
+        List<String> removedTypes = new ArrayList<>(previousFragments.keySet());
+        Collections.sort(removedTypes);
+
+        Set<Set<String>> changedPairs = new HashSet<>();
+        changedClassNames.forEach(name -> changedPairs.addAll(pairsByClass.getOrDefault(name, Set.of())));
+        NavigableMap<Rank, String> previousAssociations = new TreeMap<>();
+        NavigableMap<Rank, String> currentAssociations = new TreeMap<>();
+        for (Set<String> pair : changedPairs) {
+            for (Rank rank : pairs.getOrDefault(pair, List.of())) {
+                previousAssociations.put(rank, associations.remove(rank));
+            }
+            currentAssociations.putAll(renderAssociations(pair));
+        }
+        associations.putAll(currentAssociations);
+        List<String> previousLines = new ArrayList<>(previousAssociations.values());
+        List<String> currentLines = new ArrayList<>(currentAssociations.values());
+        return new DiagramDelta(removedTypes, Collections.unmodifiableMap(updatedTypes),
+                difference(previousLines, currentLines), difference(currentLines, previousLines));
+    }
+
+    /**
+     * @return the whole diagram
+     */
+    public String render() {
+        return render(new StringBuilder()).toString();
+    }
+
+    /**
+     * Write the whole diagram to <code>out</code>.
+     *
+     * @return <code>out</code>
+     */
+    public <A extends Appendable> A render(A out) {
+        try {
+            out.append(prologue);
+            for (Entry entry : entries.values()) {
+                out.append(entry.fragment);
+            }
+            for (String association : associations.values()) {
+                out.append(association);
+            }
+            out.append(epilogue);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out;
+    }
+
+    /**
+     * @return the classes of the session, in diagram order
+     */
+    public List<Class> getClasses() {
+        return entries.keySet().stream().map(JavaClazz::getRelatedClass).collect(Collectors.toList());
+    }
+
+    private Entry read(Class aClass) {
+        JavaClazz clazz = builder.createJavaClass(aClass);
+        FragmentCache fragmentCache = builder.getFragmentCache();
+        String fragment = fragmentCache == null ? new PlantUmlBuilder().addType(clazz).build()
+                : fragmentCache.get(aClass, builder.getRenderSettings(),
+                        () -> new PlantUmlBuilder().addType(clazz).build());
+        return new Entry(clazz, builder.collectAssociations(clazz), fragment);
+    }
+
+    private static Set<String> pairOf(AssociationCandidate candidate) {
+        String origin = candidate.getOrigin().getName();
+        String target = candidate.getTarget().getName();
+        return origin.equals(target) ? Set.of(origin) : Set.of(origin, target);
+    }
+
+    /**
+     * Register again the links between the two classes of a pair, in classes order like the
+     * builder, the targets that can appear in the diagram depend on the session classes.
+     *
+     * @return the rendered associations of the pair
+     */
+    private NavigableMap<Rank, String> renderAssociations(Set<String> pair) {
+        List<Entry> origins = pair.stream().map(classNames::get).filter(Objects::nonNull).sorted()
+                .collect(Collectors.toList());
+        AssociationRegistry registry = new AssociationRegistry();
+        // associations by rank, from the link creating them
+        NavigableMap<Rank, ClassAssociation> created = new TreeMap<>();
+        boolean linked = false;
+        for (Entry entry : origins) {
+            for (int i = 0; i < entry.candidates.size(); i++) {
+                AssociationCandidate candidate = entry.candidates.get(i);
+                if (!pair.equals(pairOf(candidate))) {
+                    continue;
+                }
+                linked = true;
+                // the target may have been read from a replaced version of a session class
+                Entry target = classNames.get(candidate.getTarget().getName());
+                if (target != null && !target.clazz.getRelatedClass().equals(candidate.getTarget())) {
+                    candidate = candidate.withTarget(target.clazz.getRelatedClass());
+                }
+                int size = registry.size();
+                int index = i;
+                builder.registerAssociation(candidate, registry).filter(association -> registry.size() > size)
+                        .ifPresent(association -> created.put(
+                                new Rank(association.getKey(), entry.clazz.getName(), index), association));
+            }
+        }
+
+        NavigableMap<Rank, String> rendered = new TreeMap<>();
+        created.forEach((rank, association) -> rendered.put(rank,
+                new PlantUmlBuilder().addAssociation(association).build()));
+        if (rendered.isEmpty()) {
+            pairs.remove(pair);
+        } else {
+            pairs.put(pair, new ArrayList<>(rendered.keySet()));
+        }
+        if (!linked) {
+            // no link between these classes anymore
+            pair.forEach(name -> pairsByClass.computeIfPresent(name, (key, linkedPairs) -> {
+                linkedPairs.remove(pair);
+                return linkedPairs.isEmpty() ? null : linkedPairs;
+            }));
+        }
+        return rendered;
+    }
+
+    /**
+     * @return the lines of <code>lines</code> not in <code>others</code>, counting duplicates
+     */
+    private static List<String> difference(List<String> lines, List<String> others) {
+        Map<String, Integer> counts = new HashMap<>();
+        others.forEach(line -> counts.merge(line, 1, Integer::sum));
+        List<String> difference = new ArrayList<>();
+        for (String line : lines) {
+            if (counts.merge(line, -1, Integer::sum) < 0) {
+                difference.add(line);
+            }
+        }
+        return difference;
+    }
+
+    /**
+     * Class of the session with its links and rendered definition.
+     */
+    private static final class Entry implements Comparable<Entry> {
+        private final JavaClazz clazz;
+        private final List<AssociationCandidate> candidates;
+        private final String fragment;
+
+        private Entry(JavaClazz clazz, List<AssociationCandidate> candidates, String fragment) {
+            this.clazz = clazz;
+            this.candidates = candidates;
+            this.fragment = fragment;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return clazz.compareTo(other.clazz);
+        }
+    }
+
+    /**
+     * Position of an association in the diagram: associations are sorted by key then, like in an
+     * {@link AssociationRegistry}, in registration order of the link creating them.
+     */
+    private static final class Rank implements Comparable<Rank> {
+        private final String key;
+        private final String className;
+        private final int index;
+
+        private Rank(String key, String className, int index) {
+            this.key = key;
+            this.className = className;
+            this.index = index;
+        }
+
+        @Override
+        public int compareTo(Rank other) {
+            int result = key.compareTo(other.key);
+            if (result == 0) {
+                result = className.compareTo(other.className);
+            }
+            return result != 0 ? result : Integer.compare(index, other.index);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import ch.ifocusit.plantuml.classdiagram.model.attribute.ClassAttribute;
+import ch.ifocusit.plantuml.classdiagram.model.method.ClassMethod;
+
+/**
+ * Immutable snapshot of a {@link ClassDiagramBuilder} configuration: classes, packages,
+ * predicates, options and mappers. A spec holds no build state, it can be rendered many times and
+ * concurrently by a {@link DiagramEngine}.
+ * <p>
+ * Predicates and mappers are shared, not copied: they must be thread-safe to render a spec
+ * concurrently.
+ *
+ * @author Julien Boz
+ */
+@SuppressWarnings("rawtypes")
+public final class DiagramSpec {
+
+    private final List<Class> classes;
+    private final List<java.lang.Package> packages;
+    private final List<String> packageNames;
+    private final List<Path> classpath;
+    private final Predicate<ClassAttribute> fieldPredicate;
+    private final Predicate<ClassMethod> methodPredicate;
+    private final List<String> excludes;
+    private final String[] startOptions;
+    private final String[] endOptions;
+    private final String header;
+    private final String title;
+    private final String footer;
+    private final boolean withDependencies;
+    private final boolean hideSelfLink;
+    private final boolean packagesFromBytecode;
+    private final Path classpathIndex;
+    // null when a plain ClassDiagramBuilder was its own mapper
+    private final NamesMapper namesMapper;
+    private final LinkMaker linkMaker;
+    private final List<BuildListener> listeners;
+    private final FragmentCache fragmentCache;
+
+    DiagramSpec(ClassDiagramBuilder source) {
+        this.classes = List.copyOf(source.getClasses());
+        this.packages = List.copyOf(source.getPackages());
+        this.packageNames = List.copyOf(source.getPackageNames());
+        this.classpath = List.copyOf(source.getClasspath());
+        this.fieldPredicate = source.filterFields();
+        this.methodPredicate = source.filterMethods();
+        this.excludes = List.copyOf(source.getExcludes());
+        this.startOptions = copy(source.getStartOptions());
+        this.endOptions = copy(source.getEndOptions());
+        this.header = source.getHeader();
+        this.title = source.getTitle();
+        this.footer = source.getFooter();
+        this.withDependencies = source.withDependencies;
+        this.hideSelfLink = source.hideSelfLink;
+        this.packagesFromBytecode = source.isReadPackagesFromBytecode();
+        this.classpathIndex = source.getClasspathIndex();
+        // do not retain the source builder and its build state, unless it is a subclass that may
+        // override the default mappers
+        boolean defaultMappers = source.isDefaultBuilder();
+        this.namesMapper = source.getNamesMapper() == source && defaultMappers ? null : source.getNamesMapper();
+        this.linkMaker = source.linkMaker == source && defaultMappers ? null : source.linkMaker;
+        this.listeners = List.copyOf(source.getBuildListeners());
+        this.fragmentCache = source.getFragmentCache();
+    }
+
+    private static String[] copy(String[] values) {
+        return values == null ? null : values.clone();
+    }
+
+    public List<Class> getClasses() {
+        return classes;
+    }
+
+    public List<java.lang.Package> getPackages() {
+        return packages;
+    }
+
+    public List<String> getPackageNames() {
+        return packageNames;
+    }
+
+    /**
+     * @return the external classpath, opened in a {@link ClasspathScope} for each render
+     */
+    public List<Path> getClasspath() {
+        return classpath;
+    }
+
+    public Predicate<ClassAttribute> getFieldPredicate() {
+        return fieldPredicate;
+    }
+
+    public Predicate<ClassMethod> getMethodPredicate() {
+        return methodPredicate;
+    }
+
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
+    public String[] getStartOptions() {
+        return copy(startOptions);
+    }
+
+    public String[] getEndOptions() {
+        return copy(endOptions);
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getFooter() {
+        return footer;
+    }
+
+    public boolean isWithDependencies() {
+        return withDependencies;
+    }
+
+    public boolean isHideSelfLink() {
+        return hideSelfLink;
+    }
+
+    public boolean isReadPackagesFromBytecode() {
+        return packagesFromBytecode;
+    }
+
+    /**
+     * @return the classpath index file, empty if packages classes are listed by a classpath scan
+     */
+    public Optional<Path> getClasspathIndex() {
+        return Optional.ofNullable(classpathIndex);
+    }
+
+    /**
+     * @return the names mapper, empty for the default one
+     */
+    public Optional<NamesMapper> getNamesMapper() {
+        return Optional.ofNullable(namesMapper);
+    }
+
+    /**
+     * @return the link maker, empty for the default one
+     */
+    public Optional<LinkMaker> getLinkMaker() {
+        return Optional.ofNullable(linkMaker);
+    }
+
+    public List<BuildListener> getBuildListeners() {
+        return listeners;
+    }
+
+    /**
+     * @return the cache of rendered classes shared by the renders of this spec, empty if none
+     */
+    public Optional<FragmentCache> getFragmentCache() {
+        return Optional.ofNullable(fragmentCache);
+    }
+
+    /**
+     * @return a new builder with this configuration and a fresh build state
+     */
+    public ClassDiagramBuilder toBuilder() {
+        return new ClassDiagramBuilder(this);
+    }
+}
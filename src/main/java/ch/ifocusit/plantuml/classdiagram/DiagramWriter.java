@@ -0,0 +1,189 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Write many diagram files concurrently, each one with a {@link DiagramFile}: in UTF-8, atomically
+ * and only if its content changed.
+ * <p>
+ * At most <code>parallelism</code> diagrams are rendered and written at the same time. On JDK 21
+ * and later each job runs on its own virtual thread, so a job waiting for the disk does not hold a
+ * platform thread; on older JDKs jobs run on a fixed thread pool. A failing job does not stop the
+ * others, its error is reported in its {@link Outcome}. Errors other than a
+ * <code>LinkageError</code>, like an <code>OutOfMemoryError</code>, are thrown by {@link #write()}.
+ *
+ * @author Julien Boz
+ */
+@SuppressWarnings("rawtypes")
+public class DiagramWriter {
+
+    // Executors.newVirtualThreadPerTaskExecutor(), null before JDK 21
+    private static final Method VIRTUAL_THREADS = virtualThreads();
+
+    private final int parallelism;
+    private final Map<Path, DiagramSpec> jobs = new LinkedHashMap<>();
+
+    /**
+     * Writer running as many jobs as available processors at the same time.
+     */
+    public DiagramWriter() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public DiagramWriter(int parallelism) {
+        Validate.isTrue(parallelism > 0, "Parallelism must be positive !");
+        this.parallelism = parallelism;
+    }
+
+    private static Method virtualThreads() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    public DiagramWriter add(Path file, DiagramSpec spec) {
+        Validate.notNull(file, "No file defined !");
+        Validate.notNull(spec, "No spec defined !");
+        Validate.isTrue(!jobs.containsKey(file), "Diagram file '%s' already defined !", file);
+        jobs.put(file, spec);
+        return this;
+    }
+
+    /**
+     * Add the diagram of <code>classes</code>, like
+     * {@link ClassDiagramBuilder#writeDiagramToFile(Path, Class[])}.
+     */
+    public DiagramWriter add(Path file, Class... classes) {
+        return add(file, new ClassDiagramBuilder().addClasses(classes).toSpec());
+    }
+
+    /**
+     * Render and write all the diagrams, then wait for them.
+     *
+     * @return the outcome of each job, in adding order
+     */
+    public List<Outcome> write() {
+        Semaphore permits = new Semaphore(parallelism);
+        ExecutorService executor = newExecutor();
+        try {
+            List<CompletableFuture<Outcome>> outcomes = jobs.entrySet().stream()
+                    .map(job -> CompletableFuture.supplyAsync(
+                            () -> write(job.getKey(), job.getValue(), permits), executor))
+                    .collect(Collectors.toList());
+            return outcomes.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private ExecutorService newExecutor() {
+        if (VIRTUAL_THREADS != null) {
+            try {
+                return (ExecutorService) VIRTUAL_THREADS.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                // not allowed, use platform threads
+            }
+        }
+        return Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, jobs.size())));
+    }
+
+    private static Outcome write(Path file, DiagramSpec spec, Semaphore permits) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Outcome(file, null, e);
+        }
+        try {
+            return new Outcome(file, DiagramFile.write(spec.toBuilder(), file), null);
+        } catch (Exception | LinkageError e) {
+            // even a class missing at runtime only fails its own job, virtual machine errors stop all
+            return new Outcome(file, null, e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Result or error of a job.
+     */
+    public static final class Outcome {
+        private final Path file;
+        private final DiagramFile.Result result;
+        private final Throwable error;
+
+        private Outcome(Path file, DiagramFile.Result result, Throwable error) {
+            this.file = file;
+            this.result = result;
+            this.error = error;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * @return the written file, empty if the job failed
+         */
+        public Optional<DiagramFile.Result> getResult() {
+            return Optional.ofNullable(result);
+        }
+
+        /**
+         * @return the error of the job, empty if it succeeded
+         */
+        public Optional<Throwable> getError() {
+            return Optional.ofNullable(error);
+        }
+
+        public boolean isFailed() {
+            return error != null;
+        }
+
+        @Override
+        public String toString() {
+            return error != null ? file + " failed: " + error : result.toString();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Rendered class definitions, shared by the diagrams of a job.
+ * <p>
+ * A definition is cached for a class and the builder settings it is rendered with: names mapper,
+ * link maker, fields and methods predicates and exclusions. Mappers and predicates are compared by
+ * identity, the builders must share the same instances to share definitions, like builders
+ * created from the same {@link DiagramSpec}. Hide directives of the header and footer are not part
+ * of the key, they do not change a class definition.
+ * <p>
+ * The cache is bounded by the total length of the cached definitions, the least recently used ones
+ * are evicted first. It is thread-safe.
+ *
+ * @author Julien Boz
+ */
+@SuppressWarnings("rawtypes")
+public final class FragmentCache {
+
+    private final Cache<Key, String> fragments;
+
+    /**
+     * @param maximumLength the maximum number of cached characters
+     */
+    public FragmentCache(long maximumLength) {
+        this.fragments = CacheBuilder.newBuilder().maximumWeight(maximumLength)
+                .weigher((Key key, String fragment) -> fragment.length()).recordStats().build();
+    }
+
+    /**
+     * @return the cached definition of the class, rendered by <code>renderer</code> if missing
+     */
+    String get(Class aClass, Settings settings, Supplier<String> renderer) {
+        try {
+            return fragments.get(new Key(aClass, settings), renderer::get);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Remove the definitions of the matching classes, for example those of a closed class loader.
+     */
+    public void invalidate(Predicate<Class> classes) {
+        fragments.asMap().keySet().removeIf(key -> classes.test(key.aClass));
+    }
+
+    public void invalidateAll() {
+        fragments.invalidateAll();
+    }
+
+    public long size() {
+        return fragments.size();
+    }
+
+    public CacheStats stats() {
+        return fragments.stats();
+    }
+
+    /**
+     * Builder settings changing the rendered definition of a class.
+     */
+    static final class Settings {
+        private final Object namesMapper;
+        private final Object linkMaker;
+        private final Object fieldPredicate;
+        private final Object methodPredicate;
+        private final List<String> excludes;
+
+        /**
+         * @param namesMapper the names mapper, null for the default one
+         * @param linkMaker the link maker, null for the default one
+         */
+        Settings(Object namesMapper, Object linkMaker, Object fieldPredicate, Object methodPredicate,
+                List<String> excludes) {
+            this.namesMapper = namesMapper;
+            this.linkMaker = linkMaker;
+            this.fieldPredicate = fieldPredicate;
+            this.methodPredicate = methodPredicate;
+            this.excludes = List.copyOf(excludes);
+        }
+
+        Settings withNamesMapper(Object namesMapper) {
+            return new Settings(namesMapper, linkMaker, fieldPredicate, methodPredicate, excludes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Settings)) {
+                return false;
+            }
+            Settings other = (Settings) o;
+            return namesMapper == other.namesMapper && linkMaker == other.linkMaker
+                    && fieldPredicate == other.fieldPredicate && methodPredicate == other.methodPredicate
+                    && excludes.equals(other.excludes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(namesMapper), System.identityHashCode(linkMaker),
+                    System.identityHashCode(fieldPredicate), System.identityHashCode(methodPredicate),
+                    excludes);
+        }
+    }
+
+    private static final class Key {
+        private final Class aClass;
+        private final Settings settings;
+
+        private Key(Class aClass, Settings settings) {
+            this.aClass = aClass;
+            this.settings = settings;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return aClass.equals(other.aClass) && settings.equals(other.settings);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * aClass.hashCode() + settings.hashCode();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import java.lang.reflect.Member;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Values computed once per class, field or method, null values included. Thread-safe, bounded by
+ * the number of cached values.
+ *
+ * @author Julien Boz
+ */
+@SuppressWarnings("rawtypes")
+final class MetadataCache<V> {
+
+    private final Cache<Object, Optional<V>> values;
+
+    MetadataCache(long maximumSize) {
+        this.values = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    }
+
+    /**
+     * @param key a class, field or method
+     * @return the cached value, computed by <code>supplier</code> if missing
+     */
+    V get(Object key, Supplier<V> supplier) {
+        try {
+            return values.get(key, () -> Optional.ofNullable(supplier.get())).orElse(null);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    void invalidate(Predicate<Class> classes) {
+        values.asMap().keySet().removeIf(key -> classes.test(
+                key instanceof Member ? ((Member) key).getDeclaringClass() : (Class) key));
+    }
+
+    void invalidateAll() {
+        values.invalidateAll();
+    }
+
+    long size() {
+        return values.size();
+    }
+
+    CacheStats stats() {
+        return values.stats();
+    }
+}
@@ -0,0 +1,130 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import java.time.Duration;
+
+/**
+ * What a build phase did and how long it took.
+ *
+ * @author Julien Boz
+ */
+public final class PhaseMetrics {
+
+    private final String diagram;
+    private final BuildPhase phase;
+    private final long durationNanos;
+    private final long scannedClasses;
+    private final long readMembers;
+    private final long createdAssociations;
+    private final long mergedAssociations;
+    private final long renderedLength;
+    private final long cacheHits;
+    private final long cacheMisses;
+
+    PhaseMetrics(String diagram, BuildPhase phase, long durationNanos, long scannedClasses,
+            long readMembers, long createdAssociations, long mergedAssociations, long renderedLength,
+            long cacheHits, long cacheMisses) {
+        this.diagram = diagram;
+        this.phase = phase;
+        this.durationNanos = durationNanos;
+        this.scannedClasses = scannedClasses;
+        this.readMembers = readMembers;
+        this.createdAssociations = createdAssociations;
+        this.mergedAssociations = mergedAssociations;
+        this.renderedLength = renderedLength;
+        this.cacheHits = cacheHits;
+        this.cacheMisses = cacheMisses;
+    }
+
+    /**
+     * @return the diagram title, or a description of its content if it has none
+     */
+    public String getDiagram() {
+        return diagram;
+    }
+
+    public BuildPhase getPhase() {
+        return phase;
+    }
+
+    /**
+     * @return the wall time of the phase
+     */
+    public Duration getDuration() {
+        return Duration.ofNanos(durationNanos);
+    }
+
+    public long getScannedClasses() {
+        return scannedClasses;
+    }
+
+    /**
+     * @return the number of fields and methods read, members of cached classes are not read again
+     */
+    public long getReadMembers() {
+        return readMembers;
+    }
+
+    public long getCreatedAssociations() {
+        return createdAssociations;
+    }
+
+    /**
+     * @return the number of links merged into an existing association
+     */
+    public long getMergedAssociations() {
+        return mergedAssociations;
+    }
+
+    /**
+     * @return the number of characters rendered
+     */
+    public long getRenderedLength() {
+        return renderedLength;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    /**
+     * @return the share of classes found in the builder cache, 0 if none was looked up
+     */
+    public double getCacheHitRate() {
+        long lookups = cacheHits + cacheMisses;
+        return lookups == 0 ? 0 : (double) cacheHits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return phase + " of " + diagram + " in " + getDuration().toMillis() + "ms: " + scannedClasses
+                + " classes, " + readMembers + " members, " + createdAssociations + " associations created, "
+                + mergedAssociations + " merged, " + renderedLength + " chars rendered, cache hit rate "
+                + String.format("%.2f", getCacheHitRate());
+    }
+}
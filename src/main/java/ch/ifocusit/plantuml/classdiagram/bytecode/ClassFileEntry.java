@@ -0,0 +1,70 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.bytecode;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Class file found by a {@link ClasspathScanner}.
+ *
+ * @author Julien Boz
+ */
+public final class ClassFileEntry {
+
+    private final String className;
+    private final Path source;
+    private final ByteBuffer content;
+
+    ClassFileEntry(String className, Path source, ByteBuffer content) {
+        this.className = className;
+        this.source = source;
+        this.content = content;
+    }
+
+    /**
+     * @return the binary name of the class, from the class file path
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return the jar or directory containing the class file
+     */
+    public Path getSource() {
+        return source;
+    }
+
+    /**
+     * @return the class file content, a read-only view on the mapped jar for stored entries
+     */
+    public ByteBuffer getContent() {
+        return content.duplicate();
+    }
+
+    @Override
+    public String toString() {
+        return className + " from " + source;
+    }
+}
@@ -0,0 +1,414 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.bytecode;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import ch.ifocusit.plantuml.classdiagram.model.attribute.ClassFileAttribute;
+import ch.ifocusit.plantuml.classdiagram.model.attribute.SimpleAttribute;
+import ch.ifocusit.plantuml.classdiagram.model.clazz.ClassFileClazz;
+import ch.ifocusit.plantuml.classdiagram.model.clazz.Clazz;
+import ch.ifocusit.plantuml.classdiagram.model.method.ClassFileMethod;
+
+/**
+ * Read a class model directly from a <code>.class</code> file (JVMS chapter 4), without loading
+ * the class.
+ * <p>
+ * Members are selected like {@link ch.ifocusit.plantuml.classdiagram.ClassDiagramBuilder} does:
+ * non static fields (all fields for enums) and public non static methods. The member filter is
+ * applied on the class and member names, before their descriptor and signature are parsed.
+ *
+ * @author Julien Boz
+ */
+public final class ClassFileReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+    private static final int ACC_ENUM = 0x4000;
+
+    private static final String SIGNATURE = "Signature";
+    private static final String METHOD_PARAMETERS = "MethodParameters";
+    private static final String VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+    private static final String INVISIBLE_ANNOTATIONS = "RuntimeInvisibleAnnotations";
+
+    private final ByteBuffer buffer;
+    private final int base;
+    private int pos;
+
+    private int[] offsets;
+    private String[] strings;
+
+    private ClassFileReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.base = buffer.position();
+    }
+
+    /**
+     * @return the class with all its members
+     */
+    public static ClassFileClazz read(ByteBuffer classFile) {
+        return read(classFile, (className, memberName) -> true);
+    }
+
+    /**
+     * @param classFile the class file content, from its position
+     * @param memberFilter tested with the class binary name and the member name, keep the member if
+     *        true
+     */
+    public static ClassFileClazz read(ByteBuffer classFile,
+            BiPredicate<String, String> memberFilter) {
+        return new ClassFileReader(classFile).readClass(memberFilter);
+    }
+
+    /**
+     * @return the class hierarchy and annotations, members are skipped
+     */
+    public static IndexedClass readHeader(ByteBuffer classFile) {
+        return new ClassFileReader(classFile).readHeader();
+    }
+
+    private IndexedClass readHeader() {
+        if (buffer.getInt(base) != MAGIC) {
+            throw new IllegalArgumentException("Not a class file");
+        }
+        pos = 8; // skip magic and version
+        readConstantPool();
+
+        pos += 2; // access flags
+        String className = className(u2());
+        int superIndex = u2();
+        String superClassName = superIndex == 0 ? null : className(superIndex);
+        int interfacesCount = u2();
+        List<String> interfaceNames = new ArrayList<>(interfacesCount);
+        for (int i = 0; i < interfacesCount; i++) {
+            interfaceNames.add(className(u2()));
+        }
+        // skip fields then methods
+        for (int members = 0; members < 2; members++) {
+            int count = u2();
+            for (int i = 0; i < count; i++) {
+                pos += 6; // access flags, name and descriptor
+                readAttributes(false, null);
+            }
+        }
+
+        List<String> annotationNames = new ArrayList<>();
+        int attributesCount = u2();
+        for (int i = 0; i < attributesCount; i++) {
+            String attributeName = utf8(u2());
+            int length = buffer.getInt(base + pos);
+            pos += 4;
+            int end = pos + length;
+            if (VISIBLE_ANNOTATIONS.equals(attributeName) || INVISIBLE_ANNOTATIONS.equals(attributeName)) {
+                int count = u2();
+                for (int a = 0; a < count; a++) {
+                    annotationNames.add(TypeSignature.erasureName(utf8(u2At(pos))));
+                    skipAnnotation();
+                }
+            }
+            pos = end;
+        }
+        return new IndexedClass(className, superClassName, interfaceNames, annotationNames);
+    }
+
+    private void skipAnnotation() {
+        pos += 2; // type
+        int pairs = u2();
+        for (int i = 0; i < pairs; i++) {
+            pos += 2; // element name
+            skipElementValue();
+        }
+    }
+
+    private void skipElementValue() {
+        char tag = (char) buffer.get(base + pos++);
+        switch (tag) {
+            case 'e': // enum type and constant
+                pos += 4;
+                break;
+            case '@':
+                skipAnnotation();
+                break;
+            case '[':
+                int count = u2();
+                for (int i = 0; i < count; i++) {
+                    skipElementValue();
+                }
+                break;
+            default: // constant or class index
+                pos += 2;
+        }
+    }
+
+    private ClassFileClazz readClass(BiPredicate<String, String> memberFilter) {
+        if (buffer.getInt(base) != MAGIC) {
+            throw new IllegalArgumentException("Not a class file");
+        }
+        pos = 8; // skip magic and version
+        readConstantPool();
+
+        int access = u2();
+        String className = className(u2());
+        int superIndex = u2();
+        String superClassName = superIndex == 0 ? null : className(superIndex);
+        int interfacesCount = u2();
+        List<String> interfaceNames = new ArrayList<>(interfacesCount);
+        for (int i = 0; i < interfacesCount; i++) {
+            interfaceNames.add(className(u2()));
+        }
+        boolean isEnum = (access & ACC_ENUM) != 0 && "java.lang.Enum".equals(superClassName);
+
+        ClassFileClazz clazz = new ClassFileClazz(className, TypeSignature.simpleClassName(className),
+                parseType(access, isEnum), (access & ACC_INTERFACE) != 0 ? null : superClassName,
+                Collections.unmodifiableList(interfaceNames));
+
+        int fieldsCount = u2();
+        for (int i = 0; i < fieldsCount; i++) {
+            readField(clazz, isEnum, memberFilter);
+        }
+        int methodsCount = u2();
+        for (int i = 0; i < methodsCount; i++) {
+            readMethod(clazz, memberFilter);
+        }
+        return clazz;
+    }
+
+    private void readField(ClassFileClazz clazz, boolean isEnum,
+            BiPredicate<String, String> memberFilter) {
+        int access = u2();
+        String name = utf8(u2());
+        int descriptorIndex = u2();
+        boolean keep = !name.startsWith("$") && (isEnum || (access & ACC_STATIC) == 0)
+                && memberFilter.test(clazz.getClassName(), name);
+        String signature = readAttributes(keep, null);
+        if (!keep) {
+            return;
+        }
+        String descriptor = utf8(descriptorIndex);
+        TypeSignature type = TypeSignature.parseType(signature == null ? descriptor : signature);
+        Set<String> concernedTypes = new LinkedHashSet<>();
+        concernedTypes.add(TypeSignature.erasureName(descriptor));
+        concernedTypes.addAll(type.getGenericTypes());
+        clazz.getAttributes().add(new ClassFileAttribute(clazz.getClassName(), name,
+                isEnum ? null : type.getSimpleName(), concernedTypes));
+    }
+
+    private void readMethod(ClassFileClazz clazz, BiPredicate<String, String> memberFilter) {
+        int access = u2();
+        String name = utf8(u2());
+        int descriptorIndex = u2();
+        boolean keep = (access & ACC_PUBLIC) != 0 && (access & ACC_STATIC) == 0
+                && !name.startsWith("<") && memberFilter.test(clazz.getClassName(), name);
+        List<String> parameterNames = keep ? new ArrayList<>() : null;
+        String signature = readAttributes(keep, parameterNames);
+        if (!keep) {
+            return;
+        }
+        String descriptor = utf8(descriptorIndex);
+        List<String> erasures = erasures(descriptor);
+        List<TypeSignature> types = TypeSignature.parseMethod(descriptor);
+        if (signature != null) {
+            List<TypeSignature> genericTypes = TypeSignature.parseMethod(signature);
+            // synthetic parameters are not part of the signature
+            if (genericTypes.size() == types.size()) {
+                types = genericTypes;
+            }
+        }
+        int parametersCount = types.size() - 1;
+        TypeSignature returnType = types.get(parametersCount);
+
+        Set<String> concernedReturnedTypes = new LinkedHashSet<>();
+        concernedReturnedTypes.add(erasures.get(parametersCount));
+        if (returnType != null) {
+            concernedReturnedTypes.addAll(returnType.getGenericTypes());
+        }
+        Set<String> concernedTypes = new LinkedHashSet<>(concernedReturnedTypes);
+        SimpleAttribute[] parameters = new SimpleAttribute[parametersCount];
+        for (int i = 0; i < parametersCount; i++) {
+            String parameterName = i < parameterNames.size() && parameterNames.get(i) != null
+                    ? parameterNames.get(i)
+                    : "arg" + i;
+            parameters[i] = new SimpleAttribute(parameterName, types.get(i).getSimpleName());
+            concernedTypes.add(erasures.get(i));
+            concernedTypes.addAll(types.get(i).getGenericTypes());
+        }
+        clazz.getMethods().add(new ClassFileMethod(clazz.getClassName(), name,
+                returnType == null ? null : returnType.getSimpleName(), parameters, concernedTypes,
+                concernedReturnedTypes));
+    }
+
+    /**
+     * Read member attributes.
+     *
+     * @param parameterNames filled with method parameter names when not null
+     * @return the generic signature if any
+     */
+    private String readAttributes(boolean keep, List<String> parameterNames) {
+        String signature = null;
+        int attributesCount = u2();
+        for (int i = 0; i < attributesCount; i++) {
+            int nameIndex = u2();
+            int length = buffer.getInt(base + pos);
+            pos += 4;
+            int end = pos + length;
+            if (keep) {
+                String attributeName = utf8(nameIndex);
+                if (SIGNATURE.equals(attributeName)) {
+                    signature = utf8(u2());
+                } else if (METHOD_PARAMETERS.equals(attributeName) && parameterNames != null) {
+                    int count = buffer.get(base + pos++) & 0xFF;
+                    for (int p = 0; p < count; p++) {
+                        int parameterNameIndex = u2();
+                        parameterNames.add(parameterNameIndex == 0 ? null : utf8(parameterNameIndex));
+                        pos += 2; // access flags
+                    }
+                }
+            }
+            pos = end;
+        }
+        return signature;
+    }
+
+    private Clazz.Type parseType(int access, boolean isEnum) {
+        if ((access & ACC_INTERFACE) != 0) {
+            return Clazz.Type.INTERFACE;
+        }
+        if (isEnum) {
+            return Clazz.Type.ENUM;
+        }
+        if ((access & ACC_ABSTRACT) != 0) {
+            return Clazz.Type.ABSTRACT;
+        }
+        return Clazz.Type.CLASS;
+    }
+
+    private void readConstantPool() {
+        int count = u2();
+        offsets = new int[count];
+        strings = new String[count];
+        for (int i = 1; i < count; i++) {
+            int tag = buffer.get(base + pos++);
+            offsets[i] = pos;
+            switch (tag) {
+                case 1: // utf8
+                    pos += 2 + u2At(pos);
+                    break;
+                case 5: // long
+                case 6: // double
+                    pos += 8;
+                    i++;
+                    break;
+                case 3: // integer
+                case 4: // float
+                case 9: // field ref
+                case 10: // method ref
+                case 11: // interface method ref
+                case 12: // name and type
+                case 17: // dynamic
+                case 18: // invoke dynamic
+                    pos += 4;
+                    break;
+                case 15: // method handle
+                    pos += 3;
+                    break;
+                case 7: // class
+                case 8: // string
+                case 16: // method type
+                case 19: // module
+                case 20: // package
+                    pos += 2;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+            }
+        }
+    }
+
+    private String className(int classIndex) {
+        return utf8(u2At(offsets[classIndex])).replace('/', '.');
+    }
+
+    private String utf8(int index) {
+        String value = strings[index];
+        if (value == null) {
+            // modified UTF-8
+            int offset = base + offsets[index];
+            int length = u2At(offsets[index]);
+            char[] chars = new char[length];
+            int count = 0;
+            int i = offset + 2;
+            int end = i + length;
+            while (i < end) {
+                int b = buffer.get(i++) & 0xFF;
+                if (b < 0x80) {
+                    chars[count++] = (char) b;
+                } else if ((b & 0xE0) == 0xC0) {
+                    chars[count++] = (char) (((b & 0x1F) << 6) | (buffer.get(i++) & 0x3F));
+                } else {
+                    chars[count++] = (char) (((b & 0x0F) << 12) | ((buffer.get(i++) & 0x3F) << 6)
+                            | (buffer.get(i++) & 0x3F));
+                }
+            }
+            value = new String(chars, 0, count);
+            strings[index] = value;
+        }
+        return value;
+    }
+
+    private int u2() {
+        int value = u2At(pos);
+        pos += 2;
+        return value;
+    }
+
+    private int u2At(int offset) {
+        return buffer.getShort(base + offset) & 0xFFFF;
+    }
+
+    /**
+     * @return erased type names of the parameters followed by the returned one
+     */
+    private static List<String> erasures(String methodDescriptor) {
+        List<String> names = new ArrayList<>();
+        int i = 1; // skip '('
+        while (methodDescriptor.charAt(i) != ')') {
+            int start = i;
+            while (methodDescriptor.charAt(i) == '[') {
+                i++;
+            }
+            i = methodDescriptor.charAt(i) == 'L' ? methodDescriptor.indexOf(';', i) + 1 : i + 1;
+            names.add(TypeSignature.erasureName(methodDescriptor.substring(start, i)));
+        }
+        names.add(TypeSignature.erasureName(methodDescriptor.substring(i + 1)));
+        return names;
+    }
+}
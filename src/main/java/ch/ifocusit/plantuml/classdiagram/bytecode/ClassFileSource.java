@@ -0,0 +1,191 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.bytecode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import com.google.common.reflect.ClassPath;
+import ch.ifocusit.plantuml.classdiagram.model.clazz.ClassFileClazz;
+import ch.ifocusit.plantuml.classdiagram.model.method.ClassFileMethod;
+import ch.ifocusit.plantuml.utils.ExclusionMatcher;
+
+/**
+ * Class models read from the class files visible by a class loader. Classes are never loaded, so
+ * their static initializers are not run.
+ * <p>
+ * Exclusion patterns are matched against <code>className.memberName</code> like
+ * {@link ch.ifocusit.plantuml.classdiagram.AbstractClassDiagramBuilder#excludes(String...)}, before
+ * the member is parsed. Like the builder default predicates, java Object methods and getters/setters
+ * are ignored. As super classes are not read, getters and setters are recognized by their own
+ * signature only, unlike {@link ch.ifocusit.plantuml.utils.ClassMetadata#isSetter(java.lang.reflect.Method)}:
+ * a setter is not matched with the getter type, nor with an inherited getter.
+ *
+ * @author Julien Boz
+ */
+@SuppressWarnings("UnstableApiUsage")
+public class ClassFileSource {
+
+    private static final List<String> DEFAULT_METHODS_EXCLUDED = List.of("equals", "hashCode", "toString");
+
+    private final ClassLoader classLoader;
+    private final List<String> excludes = new ArrayList<>();
+    private ExclusionMatcher exclusions = ExclusionMatcher.none();
+    private ClassPath classPath;
+    private ClasspathIndex index;
+    private ClasspathScanner scanner;
+
+    public ClassFileSource(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * List package classes from <code>index</code> instead of scanning the classpath.
+     */
+    public ClassFileSource withIndex(ClasspathIndex index) {
+        this.index = index;
+        return this;
+    }
+
+    /**
+     * Read package classes with <code>scanner</code> instead of the class loader resources.
+     */
+    public ClassFileSource withScanner(ClasspathScanner scanner) {
+        this.scanner = scanner;
+        return this;
+    }
+
+    public ClassFileSource excludes(String... excludes) {
+        return excludes(Arrays.asList(excludes));
+    }
+
+    public ClassFileSource excludes(Collection<String> excludes) {
+        this.excludes.addAll(excludes);
+        this.exclusions = ExclusionMatcher.compile(this.excludes);
+        return this;
+    }
+
+    /**
+     * @return the top level classes of the package with their members, sorted by name
+     */
+    public List<ClassFileClazz> readPackage(String packageName) throws IOException {
+        List<ClassFileClazz> classes = new ArrayList<>();
+        for (ByteBuffer classFile : readTopLevelClasses(packageName)) {
+            classes.add(read(classFile));
+        }
+        classes.sort(Comparator.naturalOrder());
+        return classes;
+    }
+
+    /**
+     * @return the top level classes of the package without their members, sorted by name
+     */
+    public List<ClassFileClazz> listPackage(String packageName) throws IOException {
+        List<ClassFileClazz> classes = new ArrayList<>();
+        for (ByteBuffer classFile : readTopLevelClasses(packageName)) {
+            classes.add(ClassFileReader.read(classFile, (className, memberName) -> false));
+        }
+        classes.sort(Comparator.naturalOrder());
+        return classes;
+    }
+
+    /**
+     * @return the class with its members not excluded
+     */
+    public ClassFileClazz read(ByteBuffer classFile) {
+        ClassFileClazz clazz = ClassFileReader.read(classFile, this::keep);
+        List<ClassFileMethod> methods = clazz.getMethods().stream()
+                .filter(method -> !DEFAULT_METHODS_EXCLUDED.contains(method.getName())
+                        && !isGetter(method) && !isSetter(method))
+                .sorted(Comparator.comparing(ClassFileMethod::getName))
+                .collect(Collectors.toList());
+        clazz.getMethods().clear();
+        clazz.getMethods().addAll(methods);
+        return clazz;
+    }
+
+    private boolean keep(String className, String memberName) {
+        if (memberName.equals("ENUM$VALUES")) {
+            return false;
+        }
+        return !exclusions.matches(className, memberName);
+    }
+
+    private List<ByteBuffer> readTopLevelClasses(String packageName) throws IOException {
+        List<ByteBuffer> classFiles = new ArrayList<>();
+        if (index != null) {
+            for (IndexedClass indexedClass : index.getTopLevelClasses(packageName)) {
+                try (InputStream in = classLoader.getResourceAsStream(indexedClass.getResourceName())) {
+                    if (in == null) {
+                        throw new IOException("Class file of " + indexedClass + " not found");
+                    }
+                    classFiles.add(ByteBuffer.wrap(in.readAllBytes()));
+                }
+            }
+        } else if (scanner != null) {
+            for (ClassFileEntry entry : scanner.readTopLevelClasses(packageName)) {
+                classFiles.add(entry.getContent());
+            }
+        } else {
+            for (ClassPath.ClassInfo classInfo : getClassPath().getTopLevelClasses(packageName)) {
+                classFiles.add(ByteBuffer.wrap(classInfo.asByteSource().read()));
+            }
+        }
+        return classFiles;
+    }
+
+    private ClassPath getClassPath() throws IOException {
+        if (classPath == null) {
+            classPath = ClassPath.from(classLoader);
+        }
+        return classPath;
+    }
+
+    /**
+     * @return true if the method is named and typed like a property read method
+     */
+    private static boolean isGetter(ClassFileMethod method) {
+        String name = method.getName();
+        if (method.getParameterCount() != 0 || method.getReturnTypeName().isEmpty()) {
+            return false;
+        }
+        return (name.length() > 3 && name.startsWith("get")) || (name.length() > 2
+                && name.startsWith("is") && method.getReturnTypeName().get().equals("boolean"));
+    }
+
+    /**
+     * @return true if the method is named and typed like a property write method, whatever the
+     *         getter type
+     */
+    private static boolean isSetter(ClassFileMethod method) {
+        String name = method.getName();
+        return name.length() > 3 && name.startsWith("set") && method.getParameterCount() == 1
+                && method.getReturnTypeName().isEmpty();
+    }
+}
@@ -0,0 +1,513 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.bytecode;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Index of the classes of a classpath, persisted in a file and updated incrementally.
+ * <p>
+ * Each classpath element is recorded with its size and modification time, jars also with their
+ * content hash. When the index is opened, unchanged elements are reused as is, a touched jar whose
+ * content hash is the same is not read again and only the changed class files of a directory are
+ * read. For each class, the index records its name, super types and annotations, read from the
+ * class file header without loading the class. The index file is read at once in memory, never
+ * mapped so it can be replaced on every platform, and rewritten atomically when something changed.
+ * <p>
+ * Like Guava <code>ClassPath</code>, the classpath of a class loader is made of the URLs of its
+ * <code>URLClassLoader</code> ancestors and of the <code>java.class.path</code> for the system class
+ * loader, with the elements of the jar manifests <code>Class-Path</code>.
+ *
+ * @author Julien Boz
+ */
+public final class ClasspathIndex {
+
+    private static final int MAGIC = 0x50554D49;
+    private static final int VERSION = 1;
+    private static final String CLASS_EXTENSION = ".class";
+    private static final byte[] NO_HASH = new byte[0];
+
+    private final Map<String, List<IndexedClass>> topLevelClasses = new HashMap<>();
+    private final List<IndexedClass> classes = new ArrayList<>();
+    private final boolean updated;
+
+    private ClasspathIndex(List<Element> elements, boolean updated) {
+        this.updated = updated;
+        // the first class of a given name hides the next ones, like in a class loader
+        Set<String> names = new HashSet<>();
+        for (Element element : elements) {
+            for (Entry entry : element.entries) {
+                IndexedClass clazz = entry.clazz;
+                if (names.add(clazz.getName())) {
+                    classes.add(clazz);
+                    if (clazz.isTopLevel()) {
+                        topLevelClasses.computeIfAbsent(clazz.getPackageName(), pkg -> new ArrayList<>())
+                                .add(clazz);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Open the index of the class loader classpath, updated with the changed elements.
+     */
+    public static ClasspathIndex open(Path file, ClassLoader classLoader) throws IOException {
+        return open(file, classpathOf(classLoader));
+    }
+
+    /**
+     * Open the index of <code>classpath</code>, updated with the changed elements.
+     *
+     * @param file the index file, created if it does not exist
+     */
+    public static ClasspathIndex open(Path file, List<Path> classpath) throws IOException {
+        Map<String, Element> previous = load(file);
+        List<Element> elements = new ArrayList<>();
+        boolean updated = false;
+        for (Path entry : classpath) {
+            Path path = entry.toAbsolutePath().normalize();
+            Element old = previous.get(path.toString());
+            Element element;
+            if (Files.isDirectory(path)) {
+                element = refreshDirectory(path, old);
+            } else if (Files.isRegularFile(path)) {
+                element = refreshJar(path, old);
+            } else {
+                continue;
+            }
+            updated |= element != old;
+            elements.add(element);
+        }
+        updated |= elements.size() != previous.size();
+        if (updated) {
+            save(file, elements);
+        }
+        return new ClasspathIndex(elements, updated);
+    }
+
+    /**
+     * @return the top level classes of the package, in classpath order
+     */
+    public List<IndexedClass> getTopLevelClasses(String packageName) {
+        return Collections.unmodifiableList(topLevelClasses.getOrDefault(packageName, List.of()));
+    }
+
+    /**
+     * @return all the classes, in classpath order
+     */
+    public List<IndexedClass> getClasses() {
+        return Collections.unmodifiableList(classes);
+    }
+
+    public Set<String> getPackageNames() {
+        return classes.stream().map(IndexedClass::getPackageName)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * @return true if some elements changed since the index file was written
+     */
+    public boolean isUpdated() {
+        return updated;
+    }
+
+    /**
+     * @return the classpath elements of the class loader and its parents, parents first
+     */
+    public static List<Path> classpathOf(ClassLoader classLoader) {
+        Deque<ClassLoader> loaders = new ArrayDeque<>();
+        for (ClassLoader loader = classLoader; loader != null; loader = loader.getParent()) {
+            loaders.push(loader);
+        }
+        Set<Path> elements = new LinkedHashSet<>();
+        for (ClassLoader loader : loaders) {
+            if (loader instanceof URLClassLoader) {
+                for (URL url : ((URLClassLoader) loader).getURLs()) {
+                    if ("file".equals(url.getProtocol())) {
+                        addElement(elements, toPath(url));
+                    }
+                }
+            }
+            if (loader == ClassLoader.getSystemClassLoader()) {
+                for (String path : System.getProperty("java.class.path").split(File.pathSeparator)) {
+                    if (!path.isEmpty()) {
+                        addElement(elements, Paths.get(path));
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(elements);
+    }
+
+    private static Path toPath(URL url) {
+        try {
+            return Paths.get(url.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return Paths.get(url.getPath());
+        }
+    }
+
+    /**
+     * Add a classpath element then, for a jar, the elements of its manifest <code>Class-Path</code>.
+     */
+    private static void addElement(Set<Path> elements, Path path) {
+        if (!elements.add(path) || !Files.isRegularFile(path)) {
+            return;
+        }
+        Manifest manifest;
+        try (JarFile jar = new JarFile(path.toFile())) {
+            manifest = jar.getManifest();
+        } catch (IOException e) {
+            return; // not a jar, ignored like Guava ClassPath
+        }
+        String classPath = manifest == null ? null
+                : manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+        if (classPath == null) {
+            return;
+        }
+        for (String entry : classPath.split(" ")) {
+            if (entry.isEmpty()) {
+                continue;
+            }
+            try {
+                // entries are URLs relative to the jar
+                URL url = new URL(path.toUri().toURL(), entry);
+                if ("file".equals(url.getProtocol())) {
+                    addElement(elements, toPath(url));
+                }
+            } catch (MalformedURLException e) {
+                // invalid entry, ignored like Guava ClassPath
+            }
+        }
+    }
+
+    // *********************************************************************************
+    // REFRESH
+    // *********************************************************************************
+
+    private static Element refreshJar(Path path, Element old) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        if (old != null && !old.directory && old.size == size && old.modified == modified) {
+            return old;
+        }
+        byte[] hash = hash(path);
+        if (old != null && !old.directory && Arrays.equals(old.hash, hash)) {
+            // touched but not changed
+            return new Element(old.path, false, size, modified, hash, old.entries);
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+            while (zipEntries.hasMoreElements()) {
+                ZipEntry zipEntry = zipEntries.nextElement();
+                String className = toClassName(zipEntry.getName());
+                if (className != null && !zipEntry.isDirectory()) {
+                    try (InputStream in = zip.getInputStream(zipEntry)) {
+                        entries.add(new Entry(readClass(className, in.readAllBytes()), 0, 0));
+                    }
+                }
+            }
+        } catch (ZipException e) {
+            // not a jar, nothing to index
+        }
+        return new Element(path.toString(), false, size, modified, hash, entries);
+    }
+
+    private static Element refreshDirectory(Path path, Element old) throws IOException {
+        Map<String, Entry> previous = new HashMap<>();
+        if (old != null && old.directory) {
+            old.entries.forEach(entry -> previous.put(entry.clazz.getName(), entry));
+        }
+        boolean changed = old == null || !old.directory;
+
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(path)) {
+            files = walk.filter(file -> file.getFileName().toString().endsWith(CLASS_EXTENSION))
+                    .sorted().collect(Collectors.toList());
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (Path file : files) {
+            String className = toClassName(path.relativize(file).toString().replace(File.separatorChar, '/'));
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (className == null || !attributes.isRegularFile()) {
+                continue;
+            }
+            long size = attributes.size();
+            long modified = attributes.lastModifiedTime().toMillis();
+            Entry entry = previous.get(className);
+            if (entry == null || entry.size != size || entry.modified != modified) {
+                entry = new Entry(readClass(className, Files.readAllBytes(file)), size, modified);
+                changed = true;
+            }
+            entries.add(entry);
+        }
+        changed |= entries.size() != previous.size();
+        return changed ? new Element(path.toString(), true, 0, 0, NO_HASH, entries) : old;
+    }
+
+    /**
+     * @return the class name of a class file resource, null for other resources
+     */
+    private static String toClassName(String resourceName) {
+        if (!resourceName.endsWith(CLASS_EXTENSION) || resourceName.startsWith("META-INF/")) {
+            return null;
+        }
+        return resourceName.substring(0, resourceName.length() - CLASS_EXTENSION.length())
+                .replace('/', '.');
+    }
+
+    private static IndexedClass readClass(String className, byte[] classFile) {
+        try {
+            IndexedClass header = ClassFileReader.readHeader(ByteBuffer.wrap(classFile));
+            return new IndexedClass(className, header.getSuperClassName().orElse(null),
+                    header.getInterfaceNames(), header.getAnnotationNames());
+        } catch (RuntimeException e) {
+            // unreadable class file, still listed like the class loader would do
+            return new IndexedClass(className, null, List.of(), List.of());
+        }
+    }
+
+    private static byte[] hash(Path path) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(Files.newInputStream(path), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // *********************************************************************************
+    // STORAGE
+    // *********************************************************************************
+
+    private static void save(Path file, List<Element> elements) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(elements.size());
+                for (Element element : elements) {
+                    out.writeUTF(element.path);
+                    out.writeBoolean(element.directory);
+                    out.writeLong(element.size);
+                    out.writeLong(element.modified);
+                    out.writeShort(element.hash.length);
+                    out.write(element.hash);
+                    out.writeInt(element.entries.size());
+                    for (Entry entry : element.entries) {
+                        out.writeLong(entry.size);
+                        out.writeLong(entry.modified);
+                        out.writeUTF(entry.clazz.getName());
+                        out.writeUTF(entry.clazz.getSuperClassName().orElse(""));
+                        writeNames(out, entry.clazz.getInterfaceNames());
+                        writeNames(out, entry.clazz.getAnnotationNames());
+                    }
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeNames(DataOutputStream out, List<String> names) throws IOException {
+        out.writeShort(names.size());
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+    }
+
+    /**
+     * @return the elements of the index file by path, empty if it does not exist or is unreadable
+     */
+    private static Map<String, Element> load(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return Map.of();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // read the whole index
+            }
+            buffer.flip();
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return Map.of();
+            }
+            // names shared by many classes are read once
+            Map<String, String> names = new HashMap<>();
+            int elementsCount = buffer.getInt();
+            Map<String, Element> elements = new LinkedHashMap<>();
+            for (int i = 0; i < elementsCount; i++) {
+                String path = readUtf(buffer);
+                boolean directory = buffer.get() != 0;
+                long size = buffer.getLong();
+                long modified = buffer.getLong();
+                byte[] hash = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(hash);
+                int entriesCount = buffer.getInt();
+                List<Entry> entries = new ArrayList<>(entriesCount);
+                for (int e = 0; e < entriesCount; e++) {
+                    long entrySize = buffer.getLong();
+                    long entryModified = buffer.getLong();
+                    String name = readUtf(buffer);
+                    String superClassName = names.computeIfAbsent(readUtf(buffer), n -> n);
+                    List<String> interfaceNames = readNames(buffer, names);
+                    List<String> annotationNames = readNames(buffer, names);
+                    entries.add(new Entry(new IndexedClass(name, superClassName.isEmpty() ? null : superClassName,
+                            interfaceNames, annotationNames), entrySize, entryModified));
+                }
+                elements.put(path, new Element(path, directory, size, modified, hash, entries));
+            }
+            return elements;
+        } catch (IOException | RuntimeException e) {
+            // corrupted index, rebuilt from scratch
+            return Map.of();
+        }
+    }
+
+    private static List<String> readNames(ByteBuffer buffer, Map<String, String> names) {
+        int count = buffer.getShort() & 0xFFFF;
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(names.computeIfAbsent(readUtf(buffer), n -> n));
+        }
+        return values;
+    }
+
+    /**
+     * @return a string written by {@link DataOutputStream#writeUTF(String)}, modified UTF-8
+     */
+    private static String readUtf(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        char[] chars = new char[length];
+        int count = 0;
+        int end = buffer.position() + length;
+        while (buffer.position() < end) {
+            int b = buffer.get() & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[count++] = (char) (((b & 0x1F) << 6) | (buffer.get() & 0x3F));
+            } else {
+                chars[count++] = (char) (((b & 0x0F) << 12) | ((buffer.get() & 0x3F) << 6)
+                        | (buffer.get() & 0x3F));
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    /**
+     * Classpath jar or directory.
+     */
+    private static final class Element {
+        private final String path;
+        private final boolean directory;
+        // jar size and modification time, 0 for a directory
+        private final long size;
+        private final long modified;
+        private final byte[] hash;
+        private final List<Entry> entries;
+
+        private Element(String path, boolean directory, long size, long modified, byte[] hash,
+                List<Entry> entries) {
+            this.path = path;
+            this.directory = directory;
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+            this.entries = entries;
+        }
+    }
+
+    /**
+     * Indexed class with its class file size and modification time, 0 inside a jar.
+     */
+    private static final class Entry {
+        private final IndexedClass clazz;
+        private final long size;
+        private final long modified;
+
+        private Entry(IndexedClass clazz, long size, long modified) {
+            this.clazz = clazz;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+}
@@ -0,0 +1,455 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.bytecode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Class files of a classpath, read without <code>JarFile</code>.
+ * <p>
+ * Jars are read in memory, or memory-mapped when bigger than 4MB, and their central directory is
+ * parsed once, when the scanner is opened. Class directories are walked with NIO. Class files are
+ * then read on demand: stored jar entries are returned as zero-copy slices of the jar buffer,
+ * deflated ones are inflated. Elements are opened and class files read concurrently when an
+ * executor is given.
+ * <p>
+ * When the same class is found in many elements, the first one in classpath order is kept. Jars
+ * bigger than 2GB are read through <code>ZipFile</code>.
+ * <p>
+ * Closing the scanner drops its jar buffers. A mapped jar is only unmapped once garbage collected
+ * and stays locked until then on Windows, hence small jars are not mapped.
+ *
+ * @author Julien Boz
+ */
+public final class ClasspathScanner implements AutoCloseable {
+
+    private static final String CLASS_EXTENSION = ".class";
+
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int CENTRAL_SIGNATURE = 0x02014b50;
+    private static final int LOCAL_SIGNATURE = 0x04034b50;
+    private static final int END_SIZE = 22;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    // smaller jars are read in memory, so they are never locked by a mapping
+    private static final long MAPPING_THRESHOLD = 4 * 1024 * 1024;
+
+    private final Executor executor;
+    // null once closed
+    private volatile List<Location> locations;
+
+    private ClasspathScanner(Executor executor, List<Location> locations) {
+        this.executor = executor;
+        this.locations = locations;
+    }
+
+    /**
+     * Open the classpath elements, on the calling thread.
+     */
+    public static ClasspathScanner open(List<Path> classpath) throws IOException {
+        return open(classpath, null);
+    }
+
+    /**
+     * Open the classpath elements, concurrently on <code>executor</code> if not null.
+     */
+    public static ClasspathScanner open(List<Path> classpath, Executor executor) throws IOException {
+        List<List<Location>> elements = map(classpath, ClasspathScanner::openElement, executor);
+        // the first class of a given name hides the next ones, like in a class loader
+        Set<String> names = new HashSet<>();
+        List<Location> locations = new ArrayList<>();
+        elements.forEach(element -> element.stream().filter(location -> names.add(location.className))
+                .forEach(locations::add));
+        return new ClasspathScanner(executor, locations);
+    }
+
+    /**
+     * @return the binary names of all the classes
+     */
+    public List<String> getClassNames() {
+        return locations().stream().map(location -> location.className).collect(Collectors.toList());
+    }
+
+    /**
+     * @return the top level classes of the package, in classpath order
+     */
+    public List<ClassFileEntry> readTopLevelClasses(String packageName) throws IOException {
+        return read(className -> className.indexOf('$') < 0 && packageName.equals(packageOf(className)));
+    }
+
+    /**
+     * @return the class files whose binary name is accepted by <code>filter</code>, in classpath
+     *         order
+     */
+    public List<ClassFileEntry> read(Predicate<String> filter) throws IOException {
+        List<Location> selected = locations().stream().filter(location -> filter.test(location.className))
+                .collect(Collectors.toList());
+        return map(selected, Location::read, executor);
+    }
+
+    /**
+     * Drop the jar buffers, the scanner cannot be read anymore.
+     */
+    @Override
+    public void close() {
+        locations = null;
+    }
+
+    private List<Location> locations() {
+        List<Location> current = locations;
+        if (current == null) {
+            throw new IllegalStateException("Classpath scanner closed");
+        }
+        return current;
+    }
+
+    private static String packageOf(String className) {
+        int lastDot = className.lastIndexOf('.');
+        return lastDot < 0 ? "" : className.substring(0, lastDot);
+    }
+
+    /**
+     * @return the class name of a class file resource, null for other resources
+     */
+    private static String toClassName(String resourceName) {
+        if (!resourceName.endsWith(CLASS_EXTENSION) || resourceName.startsWith("META-INF/")) {
+            return null;
+        }
+        return resourceName.substring(0, resourceName.length() - CLASS_EXTENSION.length())
+                .replace('/', '.');
+    }
+
+    private static List<Location> openElement(Path element) throws IOException {
+        if (Files.isDirectory(element)) {
+            return openDirectory(element);
+        }
+        if (!Files.isRegularFile(element)) {
+            return List.of();
+        }
+        if (Files.size(element) > Integer.MAX_VALUE) {
+            return openLargeJar(element);
+        }
+        return openJar(element);
+    }
+
+    private static List<Location> openDirectory(Path directory) throws IOException {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            return walk.filter(file -> file.getFileName().toString().endsWith(CLASS_EXTENSION))
+                    .sorted().map(file -> {
+                        String className = toClassName(
+                                directory.relativize(file).toString().replace(File.separatorChar, '/'));
+                        return className == null ? null : new FileLocation(className, directory, file);
+                    }).filter(location -> location != null).collect(Collectors.toList());
+        }
+    }
+
+    // *********************************************************************************
+    // JAR
+    // *********************************************************************************
+
+    private static List<Location> openJar(Path jar) throws IOException {
+        ByteBuffer content;
+        try (FileChannel channel = FileChannel.open(jar, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAPPING_THRESHOLD) {
+                content = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                content = ByteBuffer.allocate((int) size);
+                while (content.hasRemaining() && channel.read(content) >= 0) {
+                    // read the whole jar
+                }
+                content.flip();
+            }
+        }
+        ByteBuffer zip = content.order(ByteOrder.LITTLE_ENDIAN);
+
+        int end = findEnd(zip);
+        if (end < 0) {
+            return List.of(); // not a jar
+        }
+        long entries = zip.getShort(end + 10) & 0xFFFF;
+        long directoryOffset = zip.getInt(end + 16) & 0xFFFFFFFFL;
+        if (entries == 0xFFFF || directoryOffset == 0xFFFFFFFFL) {
+            // zip64 end of central directory
+            int locator = end - 20;
+            if (locator >= 0 && zip.getInt(locator) == ZIP64_LOCATOR_SIGNATURE) {
+                int zip64End = (int) zip.getLong(locator + 8);
+                if (zip.getInt(zip64End) == ZIP64_END_SIGNATURE) {
+                    entries = zip.getLong(zip64End + 32);
+                    directoryOffset = zip.getLong(zip64End + 48);
+                }
+            }
+        }
+
+        List<Location> locations = new ArrayList<>();
+        int pos = (int) directoryOffset;
+        for (long i = 0; i < entries && zip.getInt(pos) == CENTRAL_SIGNATURE; i++) {
+            int method = zip.getShort(pos + 10) & 0xFFFF;
+            long compressedSize = zip.getInt(pos + 20) & 0xFFFFFFFFL;
+            long size = zip.getInt(pos + 24) & 0xFFFFFFFFL;
+            int nameLength = zip.getShort(pos + 28) & 0xFFFF;
+            int extraLength = zip.getShort(pos + 30) & 0xFFFF;
+            int commentLength = zip.getShort(pos + 32) & 0xFFFF;
+            long localOffset = zip.getInt(pos + 42) & 0xFFFFFFFFL;
+
+            String className = toClassName(name(zip, pos + CENTRAL_HEADER_SIZE, nameLength));
+            if (className != null) {
+                if (size == 0xFFFFFFFFL || compressedSize == 0xFFFFFFFFL || localOffset == 0xFFFFFFFFL) {
+                    // zip64 extended information, only the overflowed values are present
+                    int extra = pos + CENTRAL_HEADER_SIZE + nameLength;
+                    int extraEnd = extra + extraLength;
+                    while (extra + 4 <= extraEnd) {
+                        int id = zip.getShort(extra) & 0xFFFF;
+                        int length = zip.getShort(extra + 2) & 0xFFFF;
+                        if (id == 0x0001) {
+                            int value = extra + 4;
+                            if (size == 0xFFFFFFFFL) {
+                                size = zip.getLong(value);
+                                value += 8;
+                            }
+                            if (compressedSize == 0xFFFFFFFFL) {
+                                compressedSize = zip.getLong(value);
+                                value += 8;
+                            }
+                            if (localOffset == 0xFFFFFFFFL) {
+                                localOffset = zip.getLong(value);
+                            }
+                            break;
+                        }
+                        extra += 4 + length;
+                    }
+                }
+                locations.add(new JarLocation(className, jar, zip, method, (int) localOffset,
+                        (int) compressedSize, (int) size));
+            }
+            pos += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+        }
+        return locations;
+    }
+
+    /**
+     * @return the offset of the end of central directory record, -1 if not found
+     */
+    private static int findEnd(ByteBuffer zip) {
+        int last = zip.limit() - END_SIZE;
+        // the record ends with a comment of at most 64KB
+        int first = Math.max(0, last - 0xFFFF);
+        for (int pos = last; pos >= first; pos--) {
+            if (zip.getInt(pos) == END_SIGNATURE) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    private static String name(ByteBuffer zip, int offset, int length) {
+        byte[] bytes = new byte[length];
+        zip.duplicate().position(offset).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<Location> openLargeJar(Path jar) throws IOException {
+        List<Location> locations = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String className = toClassName(entry.getName());
+                if (className != null && !entry.isDirectory()) {
+                    locations.add(new ZipEntryLocation(className, jar, entry.getName()));
+                }
+            }
+        }
+        return locations;
+    }
+
+    // *********************************************************************************
+    // LOCATIONS
+    // *********************************************************************************
+
+    private abstract static class Location {
+        final String className;
+        final Path source;
+
+        Location(String className, Path source) {
+            this.className = className;
+            this.source = source;
+        }
+
+        abstract ClassFileEntry read() throws IOException;
+    }
+
+    private static final class FileLocation extends Location {
+        private final Path file;
+
+        FileLocation(String className, Path source, Path file) {
+            super(className, source);
+            this.file = file;
+        }
+
+        @Override
+        ClassFileEntry read() throws IOException {
+            // class files are small, reading them is cheaper than mapping them
+            return new ClassFileEntry(className, source, ByteBuffer.wrap(Files.readAllBytes(file)).asReadOnlyBuffer());
+        }
+    }
+
+    private static final class JarLocation extends Location {
+        private final ByteBuffer zip;
+        private final int method;
+        private final int localOffset;
+        private final int compressedSize;
+        private final int size;
+
+        JarLocation(String className, Path source, ByteBuffer zip, int method, int localOffset,
+                int compressedSize, int size) {
+            super(className, source);
+            this.zip = zip;
+            this.method = method;
+            this.localOffset = localOffset;
+            this.compressedSize = compressedSize;
+            this.size = size;
+        }
+
+        @Override
+        ClassFileEntry read() throws IOException {
+            if (zip.getInt(localOffset) != LOCAL_SIGNATURE) {
+                throw new IOException("Invalid local header for " + className + " in " + source);
+            }
+            int nameLength = zip.getShort(localOffset + 26) & 0xFFFF;
+            int extraLength = zip.getShort(localOffset + 28) & 0xFFFF;
+            int data = localOffset + LOCAL_HEADER_SIZE + nameLength + extraLength;
+            // absolute slice, shared buffer position is never moved
+            ByteBuffer compressed = zip.duplicate().position(data).limit(data + compressedSize).slice();
+            if (method == STORED) {
+                return new ClassFileEntry(className, source, compressed.asReadOnlyBuffer());
+            }
+            if (method != DEFLATED) {
+                throw new IOException("Unsupported compression method " + method + " for " + className);
+            }
+            Inflater inflater = new Inflater(true);
+            try {
+                inflater.setInput(compressed);
+                ByteBuffer content = ByteBuffer.allocate(size);
+                while (content.hasRemaining() && !inflater.finished()) {
+                    if (inflater.inflate(content) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                }
+                return new ClassFileEntry(className, source, content.flip().asReadOnlyBuffer());
+            } catch (DataFormatException e) {
+                throw new IOException("Cannot inflate " + className + " from " + source, e);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    private static final class ZipEntryLocation extends Location {
+        private final String entryName;
+
+        ZipEntryLocation(String className, Path source, String entryName) {
+            super(className, source);
+            this.entryName = entryName;
+        }
+
+        @Override
+        ClassFileEntry read() throws IOException {
+            try (ZipFile zip = new ZipFile(source.toFile());
+                    InputStream in = zip.getInputStream(zip.getEntry(entryName))) {
+                return new ClassFileEntry(className, source, ByteBuffer.wrap(in.readAllBytes()).asReadOnlyBuffer());
+            }
+        }
+    }
+
+    // *********************************************************************************
+    // CONCURRENCY
+    // *********************************************************************************
+
+    private interface IOFunction<T, R> {
+        R apply(T value) throws IOException;
+    }
+
+    /**
+     * @return the results in items order, computed concurrently on <code>executor</code> if not null
+     */
+    private static <T, R> List<R> map(List<T> items, IOFunction<T, R> function, Executor executor)
+            throws IOException {
+        Function<T, R> unchecked = item -> {
+            try {
+                return function.apply(item);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        try {
+            if (executor == null) {
+                return items.stream().map(unchecked).collect(Collectors.toList());
+            }
+            List<CompletableFuture<R>> futures = items.stream()
+                    .map(item -> CompletableFuture.supplyAsync(() -> unchecked.apply(item), executor))
+                    .collect(Collectors.toList());
+            return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
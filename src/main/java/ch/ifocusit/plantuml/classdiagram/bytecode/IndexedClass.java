@@ -0,0 +1,96 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.bytecode;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Class entry of a {@link ClasspathIndex}: its name, hierarchy and annotations.
+ *
+ * @author Julien Boz
+ */
+public final class IndexedClass {
+
+    private final String name;
+    private final String superClassName;
+    private final List<String> interfaceNames;
+    private final List<String> annotationNames;
+
+    public IndexedClass(String name, String superClassName, List<String> interfaceNames,
+            List<String> annotationNames) {
+        this.name = name;
+        this.superClassName = superClassName;
+        this.interfaceNames = List.copyOf(interfaceNames);
+        this.annotationNames = List.copyOf(annotationNames);
+    }
+
+    /**
+     * @return the binary name of the class
+     */
+    public String getName() {
+        return name;
+    }
+
+    public String getPackageName() {
+        int lastDot = name.lastIndexOf('.');
+        return lastDot < 0 ? "" : name.substring(0, lastDot);
+    }
+
+    /**
+     * @return true if the class is not nested, like Guava <code>ClassPath</code> top level classes
+     */
+    public boolean isTopLevel() {
+        return name.indexOf('$') < 0;
+    }
+
+    /**
+     * @return the binary name of the super class, empty for <code>java.lang.Object</code>
+     */
+    public Optional<String> getSuperClassName() {
+        return Optional.ofNullable(superClassName);
+    }
+
+    public List<String> getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    /**
+     * @return the binary names of the class annotations, visible at runtime or not
+     */
+    public List<String> getAnnotationNames() {
+        return annotationNames;
+    }
+
+    /**
+     * @return the class file resource name
+     */
+    public String getResourceName() {
+        return name.replace('.', '/') + ".class";
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,319 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.bytecode;
+
+import static ch.ifocusit.plantuml.utils.ClassUtils.GENERICS_CLOSE;
+import static ch.ifocusit.plantuml.utils.ClassUtils.GENERICS_OPEN;
+import static ch.ifocusit.plantuml.utils.ClassUtils.GENERICS_SEP;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import ch.ifocusit.plantuml.utils.ClassUtils;
+
+/**
+ * Java type read from a class file descriptor or generic signature (JVMS 4.7.9.1).
+ * <p>
+ * Names are rendered like {@link ClassUtils#getSimpleName(java.lang.reflect.Type)} would render the
+ * corresponding reflective type.
+ *
+ * @author Julien Boz
+ */
+final class TypeSignature {
+
+    private static final String OBJECT = "java.lang.Object";
+
+    enum Kind {
+        PRIMITIVE, CLASS, ARRAY, VARIABLE, WILDCARD
+    }
+
+    private final Kind kind;
+    // primitive name, binary class name, variable name or wildcard prefix
+    private final String name;
+    // class type arguments
+    private final List<TypeSignature> arguments;
+    // array component or wildcard bound
+    private final TypeSignature component;
+
+    private TypeSignature(Kind kind, String name, List<TypeSignature> arguments,
+            TypeSignature component) {
+        this.kind = kind;
+        this.name = name;
+        this.arguments = arguments;
+        this.component = component;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the binary name of a class type
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return the name shown in the diagram
+     */
+    String getSimpleName() {
+        switch (kind) {
+            case CLASS:
+                String simpleName = simpleClassName(name);
+                return arguments.isEmpty() ? simpleName
+                        : simpleName + GENERICS_OPEN
+                                + arguments.stream().map(TypeSignature::getSimpleName)
+                                        .collect(Collectors.joining(GENERICS_SEP))
+                                + GENERICS_CLOSE;
+            case ARRAY:
+                // array of non generic type is a Class for reflection
+                return isGeneric() ? getTypeName() : component.getSimpleName() + "[]";
+            case WILDCARD:
+                return getTypeName();
+            default:
+                return name;
+        }
+    }
+
+    /**
+     * @return the name as given by {@link java.lang.reflect.Type#getTypeName()}
+     */
+    String getTypeName() {
+        switch (kind) {
+            case CLASS:
+                return arguments.isEmpty() ? name
+                        : name + GENERICS_OPEN
+                                + arguments.stream().map(TypeSignature::getTypeName)
+                                        .collect(Collectors.joining(GENERICS_SEP))
+                                + GENERICS_CLOSE;
+            case ARRAY:
+                return component.getTypeName() + "[]";
+            case WILDCARD:
+                if (component == null
+                        || (name.endsWith("extends") && OBJECT.equals(component.getTypeName()))) {
+                    return "?";
+                }
+                return name + " " + component.getTypeName();
+            default:
+                return name;
+        }
+    }
+
+    /**
+     * @return the binary names of the type arguments which are plain classes
+     */
+    Set<String> getGenericTypes() {
+        return arguments.stream().filter(arg -> arg.kind == Kind.CLASS && arg.arguments.isEmpty())
+                .map(arg -> arg.name).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    private boolean isGeneric() {
+        switch (kind) {
+            case CLASS:
+                return !arguments.isEmpty();
+            case ARRAY:
+                return component.isGeneric();
+            case PRIMITIVE:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    static String simpleClassName(String binaryName) {
+        String className = binaryName.substring(binaryName.lastIndexOf('.') + 1);
+        int lastDollarSign = className.lastIndexOf(ClassUtils.DOLLAR);
+        if (lastDollarSign == -1) {
+            return className;
+        }
+        // local and anonymous classes are prefixed with number
+        int start = lastDollarSign + 1;
+        while (start < className.length() && Character.isDigit(className.charAt(start))) {
+            start++;
+        }
+        return className.substring(start);
+    }
+
+    /**
+     * @return the name of the erased type as given by {@link Class#getName()}
+     */
+    static String erasureName(String descriptor) {
+        switch (descriptor.charAt(0)) {
+            case 'L':
+                return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+            case '[':
+                return descriptor.replace('/', '.');
+            default:
+                return primitiveName(descriptor.charAt(0));
+        }
+    }
+
+    static TypeSignature parseType(String signature) {
+        return new Parser(signature).type();
+    }
+
+    /**
+     * @return the parameters types followed by the return type, <code>null</code> for void
+     */
+    static List<TypeSignature> parseMethod(String signature) {
+        Parser parser = new Parser(signature);
+        parser.skipFormalTypeParameters();
+        parser.expect('(');
+        List<TypeSignature> types = new ArrayList<>();
+        while (parser.peek() != ')') {
+            types.add(parser.type());
+        }
+        parser.expect(')');
+        types.add(parser.peek() == 'V' ? null : parser.type());
+        return types;
+    }
+
+    private static String primitiveName(char descriptor) {
+        switch (descriptor) {
+            case 'B':
+                return "byte";
+            case 'C':
+                return "char";
+            case 'D':
+                return "double";
+            case 'F':
+                return "float";
+            case 'I':
+                return "int";
+            case 'J':
+                return "long";
+            case 'S':
+                return "short";
+            case 'Z':
+                return "boolean";
+            case 'V':
+                return "void";
+            default:
+                throw new IllegalArgumentException("Unknown type descriptor " + descriptor);
+        }
+    }
+
+    private static final class Parser {
+        private final String signature;
+        private int pos;
+
+        private Parser(String signature) {
+            this.signature = signature;
+        }
+
+        private char peek() {
+            return signature.charAt(pos);
+        }
+
+        private void expect(char c) {
+            if (signature.charAt(pos++) != c) {
+                throw new IllegalArgumentException(
+                        String.format("Malformed signature '%s' at %d", signature, pos - 1));
+            }
+        }
+
+        private String identifier(String terminators) {
+            int start = pos;
+            while (terminators.indexOf(signature.charAt(pos)) == -1) {
+                pos++;
+            }
+            return signature.substring(start, pos);
+        }
+
+        private void skipFormalTypeParameters() {
+            if (peek() != '<') {
+                return;
+            }
+            pos++;
+            while (peek() != '>') {
+                identifier(":");
+                // class bound may be empty, interface bounds follow
+                while (peek() == ':') {
+                    pos++;
+                    if ("LT[".indexOf(peek()) != -1) {
+                        type();
+                    }
+                }
+            }
+            pos++;
+        }
+
+        private TypeSignature type() {
+            char c = signature.charAt(pos++);
+            switch (c) {
+                case 'L':
+                    return classType();
+                case 'T': {
+                    String variable = identifier(";");
+                    pos++;
+                    return new TypeSignature(Kind.VARIABLE, variable, Collections.emptyList(), null);
+                }
+                case '[':
+                    return new TypeSignature(Kind.ARRAY, null, Collections.emptyList(), type());
+                default:
+                    return new TypeSignature(Kind.PRIMITIVE, primitiveName(c),
+                            Collections.emptyList(), null);
+            }
+        }
+
+        private TypeSignature classType() {
+            StringBuilder binaryName = new StringBuilder(identifier("<.;").replace('/', '.'));
+            List<TypeSignature> arguments = typeArguments();
+            // inner class of a parameterized type
+            while (peek() == '.') {
+                pos++;
+                binaryName.append(ClassUtils.DOLLAR).append(identifier("<.;"));
+                arguments = typeArguments();
+            }
+            expect(';');
+            return new TypeSignature(Kind.CLASS, binaryName.toString(), arguments, null);
+        }
+
+        private List<TypeSignature> typeArguments() {
+            if (peek() != '<') {
+                return Collections.emptyList();
+            }
+            pos++;
+            List<TypeSignature> arguments = new ArrayList<>();
+            while (peek() != '>') {
+                char c = peek();
+                if (c == '*') {
+                    pos++;
+                    arguments.add(new TypeSignature(Kind.WILDCARD, "? extends",
+                            Collections.emptyList(), null));
+                } else if (c == '+' || c == '-') {
+                    pos++;
+                    arguments.add(new TypeSignature(Kind.WILDCARD,
+                            c == '+' ? "? extends" : "? super", Collections.emptyList(), type()));
+                } else {
+                    arguments.add(type());
+                }
+            }
+            pos++;
+            return arguments;
+        }
+    }
+}
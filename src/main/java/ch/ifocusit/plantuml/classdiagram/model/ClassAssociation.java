@@ -0,0 +1,70 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.model;
+
+import static ch.ifocusit.plantuml.classdiagram.model.Association.AssociationType.BI_DIRECTION;
+
+/**
+ * Association between two java classes.
+ *
+ * @author Julien Boz
+ */
+@SuppressWarnings("rawtypes")
+public class ClassAssociation extends Association implements Comparable<ClassAssociation> {
+
+    private final Class classA;
+    private final Class classB;
+
+    public ClassAssociation(Class classA, Class classB) {
+        this.classA = classA;
+        this.classB = classB;
+    }
+
+    public Class getClassA() {
+        return classA;
+    }
+
+    public Class getClassB() {
+        return classB;
+    }
+
+    public void setBidirectional() {
+        type = BI_DIRECTION;
+    }
+
+    public boolean isNoSameOrigin(final Class initialClass) {
+        return !classA.equals(initialClass);
+    }
+
+    @Override
+    public int compareTo(final ClassAssociation o) {
+        return getKey().compareTo(o.getKey());
+    }
+
+    /**
+     * @return the key used to sort associations in the diagram
+     */
+    public String getKey() {
+        return aName + bName;
+    }
+}
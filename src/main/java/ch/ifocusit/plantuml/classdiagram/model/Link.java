@@ -20,41 +20,45 @@ public class Link {
         this.tooltip = tooltip;
     }
 
+    public String getUrl() {
+        return url;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getTooltip() {
+        return tooltip;
+    }
+
     public String render(LinkContext context) {
-        if (LinkContext.CLASS.equals(context)) {
-            if (StringUtils.isNotBlank(tooltip) && StringUtils.isNotBlank(url)) {
-                return String.format("[[%s{%s}]]", url, tooltip);
-            }
-            if (StringUtils.isNotBlank(tooltip) && StringUtils.isBlank(url)) {
-                return String.format("[[{%s}]]", tooltip);
-            }
-            if (StringUtils.isNotBlank(url)) {
-                return String.format("[[%s]]", url);
-            }
-            return StringUtils.EMPTY;
-        }
-        if (StringUtils.isNotBlank(tooltip) && StringUtils.isNotBlank(url) && StringUtils.isNotBlank(label)) {
-            return String.format("[[[%s{%s} %s]]]", url, tooltip, label);
-        }
-        if (StringUtils.isNotBlank(tooltip) && StringUtils.isNotBlank(url) && StringUtils.isBlank(label)) {
-            return String.format("[[[%s{%s}]]]", url, tooltip);
-        }
-        if (StringUtils.isBlank(tooltip) && StringUtils.isNotBlank(url) && StringUtils.isNotBlank(label)) {
-            return String.format("[[[%s %s]]]", url, label);
-        }
-        if (StringUtils.isNotBlank(tooltip) && StringUtils.isBlank(url) && StringUtils.isBlank(label)) {
-            return String.format("[[[{%s}]]]", tooltip);
+        return appendTo(new StringBuilder(), context).toString();
+    }
+
+    /**
+     * Append the rendered link to <code>out</code>, nothing when neither url nor tooltip is defined.
+     */
+    public StringBuilder appendTo(StringBuilder out, LinkContext context) {
+        boolean hasUrl = StringUtils.isNotBlank(url);
+        boolean hasTooltip = StringUtils.isNotBlank(tooltip);
+        if (!hasUrl && !hasTooltip) {
+            return out;
         }
-        if (StringUtils.isNotBlank(url) && StringUtils.isBlank(tooltip) && StringUtils.isBlank(label)) {
-            return String.format("[[[%s]]]", url);
+        // class links use double brackets, members links triple ones
+        boolean member = !LinkContext.CLASS.equals(context);
+        out.append(member ? "[[[" : "[[");
+        if (hasUrl) {
+            out.append(url);
         }
-        if (StringUtils.isNotBlank(url) && StringUtils.isNotBlank(label) && StringUtils.isBlank(tooltip)) {
-            return String.format("[[[%s %s]]]", url, label);
+        if (hasTooltip) {
+            out.append('{').append(tooltip).append('}');
         }
-        if (StringUtils.isNotBlank(tooltip) && StringUtils.isBlank(url)) {
-            return String.format("[[[{%s}]]]", tooltip);
+        // label is only rendered for a member link with an url
+        if (member && hasUrl && StringUtils.isNotBlank(label)) {
+            out.append(' ').append(label);
         }
-        return StringUtils.EMPTY;
+        return out.append(member ? "]]]" : "]]");
     }
 
     public enum LinkContext {
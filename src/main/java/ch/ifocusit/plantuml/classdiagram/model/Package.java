@@ -48,13 +48,16 @@ public class Package {
 
     public void validate() {
         Validate.notNull(getName(), "Package name must be defined !");
-        Validate.notNull(getType(),
-                String.format("Package '%s' tpye must be defined !", getName()));
+        Validate.notNull(getType(), "Package '%s' tpye must be defined !", getName());
     }
 
     public static Package from(java.lang.Package javaPkg) {
+        return from(javaPkg.getName());
+    }
+
+    public static Package from(String name) {
         Package p = new Package();
-        p.name = javaPkg.getName();
+        p.name = name;
         return p;
     }
 
@@ -27,7 +27,7 @@ import java.util.Optional;
 import java.util.Set;
 import ch.ifocusit.plantuml.classdiagram.model.ClassMember;
 import ch.ifocusit.plantuml.classdiagram.model.Link;
-import ch.ifocusit.plantuml.utils.ClassUtils;
+import ch.ifocusit.plantuml.utils.ClassMetadata;
 
 /**
  * @author Julien Boz
@@ -53,7 +53,7 @@ public class ClassAttribute implements Attribute, ClassMember {
         if (field.getDeclaringClass().isEnum()) {
             return Optional.empty();
         }
-        return Optional.of(ClassUtils.getSimpleName(field.getGenericType()));
+        return Optional.of(ClassMetadata.of(field.getDeclaringClass()).getTypeName(field));
     }
 
     @Override
@@ -79,7 +79,7 @@ public class ClassAttribute implements Attribute, ClassMember {
     }
 
     public Set<Class> getConcernedTypes() {
-        return ClassUtils.getConcernedTypes(this.field);
+        return ClassMetadata.of(field.getDeclaringClass()).getConcernedTypes(field);
     }
 
     public String toStringAttribute() {
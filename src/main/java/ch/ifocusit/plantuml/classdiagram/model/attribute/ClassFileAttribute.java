@@ -0,0 +1,72 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.model.attribute;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Attribute read from a class file, without loading its class.
+ *
+ * @author Julien Boz
+ */
+public class ClassFileAttribute implements Attribute {
+
+    private final String declaringClassName;
+    private final String name;
+    private final String typeName;
+    private final Set<String> concernedTypes;
+
+    public ClassFileAttribute(String declaringClassName, String name, String typeName,
+            Set<String> concernedTypes) {
+        this.declaringClassName = declaringClassName;
+        this.name = name;
+        this.typeName = typeName;
+        this.concernedTypes = concernedTypes;
+    }
+
+    @Override
+    public Optional<String> getTypeName() {
+        return Optional.ofNullable(typeName);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public String getDeclaringClassName() {
+        return declaringClassName;
+    }
+
+    /**
+     * @return binary names of the field type and of its generic types
+     */
+    public Set<String> getConcernedTypes() {
+        return concernedTypes;
+    }
+
+    public String toStringAttribute() {
+        return declaringClassName + "." + name;
+    }
+}
@@ -4,7 +4,7 @@ import java.lang.reflect.Parameter;
 import java.util.Optional;
 import java.util.Set;
 import ch.ifocusit.plantuml.classdiagram.model.ClassMember;
-import ch.ifocusit.plantuml.utils.ClassUtils;
+import ch.ifocusit.plantuml.utils.ClassMetadata;
 
 @SuppressWarnings("rawtypes")
 public class MethodAttribute implements Attribute, ClassMember {
@@ -17,7 +17,7 @@ public class MethodAttribute implements Attribute, ClassMember {
 
     @Override
     public Set<Class> getConcernedTypes() {
-        return ClassUtils.getConcernedTypes(methodParameter);
+        return metadata().getConcernedTypes(methodParameter);
     }
 
     public Class getParameterType() {
@@ -36,11 +36,15 @@ public class MethodAttribute implements Attribute, ClassMember {
 
     @Override
     public Optional<String> getTypeName() {
-        return Optional.of(ClassUtils.getSimpleName(methodParameter.getParameterizedType()));
+        return Optional.of(metadata().getTypeName(methodParameter));
     }
 
     @Override
     public String getName() {
         return methodParameter.getName();
     }
+
+    private ClassMetadata metadata() {
+        return ClassMetadata.of(getDeclaringClass());
+    }
 }
@@ -0,0 +1,96 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.model.clazz;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import ch.ifocusit.plantuml.classdiagram.model.attribute.ClassFileAttribute;
+import ch.ifocusit.plantuml.classdiagram.model.method.ClassFileMethod;
+
+/**
+ * Class read from a class file, without loading it.
+ *
+ * @author Julien Boz
+ */
+public class ClassFileClazz implements Clazz {
+
+    private final String className;
+    private final String name;
+    private final Type type;
+    private final String superClassName;
+    private final List<String> interfaceNames;
+    private final List<ClassFileAttribute> attributes = new ArrayList<>();
+    private final List<ClassFileMethod> methods = new ArrayList<>();
+
+    public ClassFileClazz(String className, String name, Type type, String superClassName,
+            List<String> interfaceNames) {
+        this.className = className;
+        this.name = name;
+        this.type = type;
+        this.superClassName = superClassName;
+        this.interfaceNames = interfaceNames;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the binary name of the class
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * @return the binary name of the super class, empty for <code>java.lang.Object</code> and
+     *         interfaces
+     */
+    public Optional<String> getSuperClassName() {
+        return Optional.ofNullable(superClassName);
+    }
+
+    /**
+     * @return the binary names of the directly implemented interfaces
+     */
+    public List<String> getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    @Override
+    public List<ClassFileAttribute> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public List<ClassFileMethod> getMethods() {
+        return methods;
+    }
+}
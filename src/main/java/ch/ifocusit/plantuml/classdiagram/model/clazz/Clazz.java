@@ -64,7 +64,7 @@ public interface Clazz extends Comparable<Clazz> {
 
     default void validate() {
         Validate.notNull(getName(), "Class name must be defined !");
-        Validate.notNull(getType(), String.format("Class '%s' type must be defined !", getName()));
+        Validate.notNull(getType(), "Class '%s' type must be defined !", getName());
     }
 
     @Override
@@ -30,7 +30,7 @@ import java.util.Optional;
 import ch.ifocusit.plantuml.classdiagram.model.Link;
 import ch.ifocusit.plantuml.classdiagram.model.attribute.ClassAttribute;
 import ch.ifocusit.plantuml.classdiagram.model.method.ClassMethod;
-import ch.ifocusit.plantuml.utils.ClassUtils;
+import ch.ifocusit.plantuml.utils.ClassMetadata;
 
 /**
  * @author Julien Boz
@@ -51,7 +51,8 @@ public class JavaClazz implements Clazz {
     }
 
     public String getName() {
-        return Optional.ofNullable(overridedName).orElse(ClassUtils.getSimpleName(relatedClass));
+        return Optional.ofNullable(overridedName)
+                .orElseGet(() -> ClassMetadata.of(relatedClass).getSimpleName());
     }
 
     public Type getType() {
@@ -0,0 +1,94 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.model.method;
+
+import java.util.Optional;
+import java.util.Set;
+import ch.ifocusit.plantuml.classdiagram.model.attribute.SimpleAttribute;
+
+/**
+ * Method read from a class file, without loading its class.
+ *
+ * @author Julien Boz
+ */
+public class ClassFileMethod implements Method {
+
+    private final String declaringClassName;
+    private final String name;
+    private final String returnTypeName;
+    private final SimpleAttribute[] parameters;
+    private final Set<String> concernedTypes;
+    private final Set<String> concernedReturnedTypes;
+
+    public ClassFileMethod(String declaringClassName, String name, String returnTypeName,
+            SimpleAttribute[] parameters, Set<String> concernedTypes,
+            Set<String> concernedReturnedTypes) {
+        this.declaringClassName = declaringClassName;
+        this.name = name;
+        this.returnTypeName = returnTypeName;
+        this.parameters = parameters;
+        this.concernedTypes = concernedTypes;
+        this.concernedReturnedTypes = concernedReturnedTypes;
+    }
+
+    @Override
+    public Optional<String> getReturnTypeName() {
+        return Optional.ofNullable(returnTypeName);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Optional<SimpleAttribute[]> getParameters() {
+        return Optional.of(parameters);
+    }
+
+    public int getParameterCount() {
+        return parameters.length;
+    }
+
+    public String getDeclaringClassName() {
+        return declaringClassName;
+    }
+
+    /**
+     * @return binary names of the returned and parameters types, with their generic types
+     */
+    public Set<String> getConcernedTypes() {
+        return concernedTypes;
+    }
+
+    /**
+     * @return binary names of the returned type and of its generic types
+     */
+    public Set<String> getConcernedReturnedTypes() {
+        return concernedReturnedTypes;
+    }
+
+    public String toStringMethod() {
+        return declaringClassName + "." + name;
+    }
+}
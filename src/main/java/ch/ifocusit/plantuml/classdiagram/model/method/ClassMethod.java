@@ -22,17 +22,14 @@
  */
 package ch.ifocusit.plantuml.classdiagram.model.method;
 
-import static ch.ifocusit.plantuml.utils.ClassUtils.getGenericTypes;
-import static ch.ifocusit.plantuml.utils.ClassUtils.getSimpleName;
 import java.lang.reflect.Method;
-import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Stream;
 import ch.ifocusit.plantuml.classdiagram.model.ClassMember;
 import ch.ifocusit.plantuml.classdiagram.model.Link;
 import ch.ifocusit.plantuml.classdiagram.model.attribute.MethodAttribute;
-import ch.ifocusit.plantuml.utils.ClassUtils;
+import ch.ifocusit.plantuml.utils.ClassMetadata;
 
 /**
  * @author Julien Boz
@@ -55,8 +52,7 @@ public class ClassMethod implements ch.ifocusit.plantuml.classdiagram.model.meth
 
     @Override
     public Optional<String> getReturnTypeName() {
-        return Optional.ofNullable(method.getReturnType().equals(Void.TYPE) ? null
-                : getSimpleName(method.getGenericReturnType()));
+        return Optional.ofNullable(metadata().getReturnTypeName(method));
     }
 
     @Override
@@ -88,15 +84,15 @@ public class ClassMethod implements ch.ifocusit.plantuml.classdiagram.model.meth
     }
 
     public Set<Class> getConcernedTypes() {
-        return ClassUtils.getConcernedTypes(this.method);
+        return metadata().getConcernedTypes(method);
     }
 
     public Set<Class> getConcernedReturnedTypes() {
-        Set<Class> classes = new HashSet<>();
-        // manage returned types
-        classes.add(method.getReturnType());
-        classes.addAll(getGenericTypes(method));
-        return classes;
+        return metadata().getConcernedReturnedTypes(method);
+    }
+
+    private ClassMetadata metadata() {
+        return ClassMetadata.of(method.getDeclaringClass());
     }
 
     public String toStringMethod() {
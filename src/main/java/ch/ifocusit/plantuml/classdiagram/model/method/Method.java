@@ -24,7 +24,7 @@ package ch.ifocusit.plantuml.classdiagram.model.method;
 
 import java.util.Optional;
 import ch.ifocusit.plantuml.classdiagram.model.Link;
-import ch.ifocusit.plantuml.classdiagram.model.attribute.MethodAttribute;
+import ch.ifocusit.plantuml.classdiagram.model.attribute.Attribute;
 
 /**
  * @author Julien Boz
@@ -35,7 +35,7 @@ public interface Method {
 
     String getName();
 
-    Optional<MethodAttribute[]> getParameters();
+    Optional<? extends Attribute[]> getParameters();
 
     default Optional<Link> getLink() {
         return Optional.empty();
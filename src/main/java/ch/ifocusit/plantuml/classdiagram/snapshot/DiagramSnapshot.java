@@ -0,0 +1,377 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.snapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import ch.ifocusit.plantuml.PlantUmlBuilder;
+import ch.ifocusit.plantuml.classdiagram.model.Association;
+import ch.ifocusit.plantuml.classdiagram.model.Association.AssociationType;
+import ch.ifocusit.plantuml.classdiagram.model.Cardinality;
+import ch.ifocusit.plantuml.classdiagram.model.Link;
+import ch.ifocusit.plantuml.classdiagram.model.Package;
+import ch.ifocusit.plantuml.classdiagram.model.attribute.Attribute;
+import ch.ifocusit.plantuml.classdiagram.model.clazz.Clazz;
+import ch.ifocusit.plantuml.classdiagram.model.method.Method;
+
+/**
+ * Immutable, detached copy of a diagram model: packages, classes with their members and
+ * associations, with the diagram options.
+ * <p>
+ * A snapshot holds no <code>Class</code>, <code>Field</code> or <code>Method</code>: names and
+ * type names are computed once, when the snapshot is built, and the strings used many times are
+ * shared. Retaining a snapshot does not retain the scanned classes nor their class loader, and
+ * rendering it does not need reflection.
+ *
+ * @author Julien Boz
+ * @see ch.ifocusit.plantuml.classdiagram.ClassDiagramBuilder#snapshot()
+ */
+public final class DiagramSnapshot {
+
+    private final String[] startOptions;
+    private final String[] endOptions;
+    private final String header;
+    private final String title;
+    private final String footer;
+    private final List<SnapshotClazz> classes;
+    private final String[] packageNames;
+    // ids of the classes of each package
+    private final int[][] packageClasses;
+    // ids of the classes rendered as types
+    private final int[] types;
+    // two names and cardinalities per association
+    private final String[] associationNames;
+    private final Cardinality[] associationCardinalities;
+    private final AssociationType[] associationTypes;
+    private final String[] associationLabels;
+
+    private DiagramSnapshot(Builder builder) {
+        this(builder.startOptions, builder.endOptions, builder.header, builder.title, builder.footer,
+                List.copyOf(builder.classes), builder.packageNames.toArray(new String[0]),
+                builder.packageClasses.toArray(new int[0][]),
+                builder.types.stream().mapToInt(Integer::intValue).toArray(),
+                builder.associationNames.toArray(new String[0]),
+                builder.associationCardinalities.toArray(new Cardinality[0]),
+                builder.associationTypes.toArray(new AssociationType[0]),
+                builder.associationLabels.toArray(new String[0]));
+    }
+
+    /**
+     * Snapshot of already shared strings and arrays, see {@link SnapshotFile}.
+     */
+    DiagramSnapshot(String[] startOptions, String[] endOptions, String header, String title,
+            String footer, List<SnapshotClazz> classes, String[] packageNames, int[][] packageClasses,
+            int[] types, String[] associationNames, Cardinality[] associationCardinalities,
+            AssociationType[] associationTypes, String[] associationLabels) {
+        this.startOptions = startOptions;
+        this.endOptions = endOptions;
+        this.header = header;
+        this.title = title;
+        this.footer = footer;
+        this.classes = classes;
+        this.packageNames = packageNames;
+        this.packageClasses = packageClasses;
+        this.types = types;
+        this.associationNames = associationNames;
+        this.associationCardinalities = associationCardinalities;
+        this.associationTypes = associationTypes;
+        this.associationLabels = associationLabels;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public String[] getStartOptions() {
+        return copy(startOptions);
+    }
+
+    public String[] getEndOptions() {
+        return copy(endOptions);
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getFooter() {
+        return footer;
+    }
+
+    /**
+     * @return all the classes, of packages and types, indexed by their id
+     */
+    public List<SnapshotClazz> getClasses() {
+        return classes;
+    }
+
+    /**
+     * @return the classes rendered with their members, in diagram order
+     */
+    public List<SnapshotClazz> getTypes() {
+        return byIds(types);
+    }
+
+    public List<String> getPackageNames() {
+        return List.of(packageNames);
+    }
+
+    /**
+     * @return the classes declared in the package at <code>index</code> in {@link #getPackageNames()}
+     */
+    public List<SnapshotClazz> getPackageClasses(int index) {
+        return byIds(packageClasses[index]);
+    }
+
+    public int getAssociationCount() {
+        return associationTypes.length;
+    }
+
+    /**
+     * @return a copy of the association at <code>index</code>, in diagram order
+     */
+    public Association getAssociation(int index) {
+        return Association.from(associationNames[2 * index], associationNames[2 * index + 1],
+                associationTypes[index], associationLabels[index],
+                associationCardinalities[2 * index], associationCardinalities[2 * index + 1]);
+    }
+
+    /**
+     * @return the diagram, same as the one built from the snapshot model
+     */
+    public String render() {
+        return render(new StringBuilder()).toString();
+    }
+
+    /**
+     * Render the diagram to <code>out</code>, element by element.
+     *
+     * @return <code>out</code>
+     */
+    public <A extends Appendable> A render(A out) {
+        PlantUmlBuilder builder = new PlantUmlBuilder(out);
+        builder.start(startOptions);
+        builder.appendHeader(header);
+        builder.appendTitle(title);
+        for (int i = 0; i < packageNames.length; i++) {
+            int[] ids = packageClasses[i];
+            Clazz[] packageClazzes = new Clazz[ids.length];
+            for (int j = 0; j < ids.length; j++) {
+                packageClazzes[j] = classes.get(ids[j]);
+            }
+            builder.addPackage(Package.from(packageNames[i]), packageClazzes);
+        }
+        for (int id : types) {
+            builder.addType(classes.get(id));
+        }
+        for (int i = 0; i < associationTypes.length; i++) {
+            builder.addAssociation(associationNames[2 * i], associationNames[2 * i + 1],
+                    associationTypes[i], associationLabels[i], associationCardinalities[2 * i],
+                    associationCardinalities[2 * i + 1]);
+        }
+        builder.appendFooter(footer);
+        builder.end(endOptions);
+        return out;
+    }
+
+    private List<SnapshotClazz> byIds(int[] ids) {
+        SnapshotClazz[] result = new SnapshotClazz[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = classes.get(ids[i]);
+        }
+        return List.of(result);
+    }
+
+    private static String[] copy(String[] values) {
+        return values == null ? null : values.clone();
+    }
+
+    /**
+     * Copy a diagram model into a {@link DiagramSnapshot}. Models are read once, when added.
+     */
+    public static final class Builder {
+
+        private final Map<String, String> strings = new HashMap<>();
+        private String[] startOptions;
+        private String[] endOptions;
+        private String header;
+        private String title;
+        private String footer;
+        private final List<SnapshotClazz> classes = new ArrayList<>();
+        private final List<String> packageNames = new ArrayList<>();
+        private final List<int[]> packageClasses = new ArrayList<>();
+        private final List<Integer> types = new ArrayList<>();
+        private final List<String> associationNames = new ArrayList<>();
+        private final List<Cardinality> associationCardinalities = new ArrayList<>();
+        private final List<AssociationType> associationTypes = new ArrayList<>();
+        private final List<String> associationLabels = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        public Builder setStartOptions(String... lines) {
+            this.startOptions = intern(lines);
+            return this;
+        }
+
+        public Builder setEndOptions(String... lines) {
+            this.endOptions = intern(lines);
+            return this;
+        }
+
+        public Builder setHeader(String header) {
+            this.header = header;
+            return this;
+        }
+
+        public Builder setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+
+        public Builder setFooter(String footer) {
+            this.footer = footer;
+            return this;
+        }
+
+        /**
+         * Add a package declaring <code>classes</code>, only their name and type are kept.
+         */
+        public Builder addPackage(String name, Clazz... classes) {
+            int[] ids = new int[classes.length];
+            for (int i = 0; i < classes.length; i++) {
+                ids[i] = add(classes[i], false);
+            }
+            packageNames.add(intern(name));
+            packageClasses.add(ids);
+            return this;
+        }
+
+        /**
+         * Add a class rendered with its members.
+         */
+        public Builder addType(Clazz clazz) {
+            types.add(add(clazz, true));
+            return this;
+        }
+
+        public Builder addAssociation(Association association) {
+            associationNames.add(intern(association.getaName()));
+            associationNames.add(intern(association.getbName()));
+            associationCardinalities.add(association.getaCardinality());
+            associationCardinalities.add(association.getbCardinality());
+            associationTypes.add(association.getType());
+            associationLabels.add(intern(association.getLabel()));
+            return this;
+        }
+
+        public DiagramSnapshot build() {
+            return new DiagramSnapshot(this);
+        }
+
+        private int add(Clazz clazz, boolean withMembers) {
+            int id = classes.size();
+            List<SnapshotAttribute> attributes = List.of();
+            List<SnapshotMethod> methods = List.of();
+            if (withMembers) {
+                List<? extends Attribute> clazzAttributes = clazz.getAttributes();
+                SnapshotAttribute[] copiedAttributes = new SnapshotAttribute[clazzAttributes.size()];
+                for (int i = 0; i < copiedAttributes.length; i++) {
+                    copiedAttributes[i] = copy(clazzAttributes.get(i));
+                }
+                List<? extends Method> clazzMethods = clazz.getMethods();
+                SnapshotMethod[] copiedMethods = new SnapshotMethod[clazzMethods.size()];
+                for (int i = 0; i < copiedMethods.length; i++) {
+                    copiedMethods[i] = copy(clazzMethods.get(i));
+                }
+                attributes = List.of(copiedAttributes);
+                methods = List.of(copiedMethods);
+            }
+            Optional<List<String>> stereotypes = clazz.getStereotypes();
+            classes.add(new SnapshotClazz(id, intern(clazz.getName()), clazz.getType(),
+                    withMembers ? copy(clazz.getLink()) : null, attributes, methods,
+                    withMembers && stereotypes.isPresent() ? List.of(intern(stereotypes.get().toArray(new String[0])))
+                            : null,
+                    withMembers ? intern(clazz.getBackgroundColor().orElse(null)) : null,
+                    withMembers ? intern(clazz.getBorderColor().orElse(null)) : null));
+            return id;
+        }
+
+        private SnapshotAttribute copy(Attribute attribute) {
+            return new SnapshotAttribute(intern(attribute.getName()),
+                    intern(attribute.getTypeName().orElse(null)), copy(attribute.getLink()));
+        }
+
+        private SnapshotMethod copy(Method method) {
+            Optional<? extends Attribute[]> parameters = method.getParameters();
+            SnapshotAttribute[] copiedParameters = null;
+            if (parameters.isPresent()) {
+                Attribute[] methodParameters = parameters.get();
+                copiedParameters = new SnapshotAttribute[methodParameters.length];
+                for (int i = 0; i < methodParameters.length; i++) {
+                    copiedParameters[i] = copy(methodParameters[i]);
+                }
+            }
+            return new SnapshotMethod(intern(method.getName()),
+                    intern(method.getReturnTypeName().orElse(null)), copiedParameters,
+                    copy(method.getLink()));
+        }
+
+        private Link copy(Optional<Link> link) {
+            if (link.isEmpty()) {
+                return null;
+            }
+            Link copied = new Link();
+            copied.setUrl(intern(link.get().getUrl()));
+            copied.setLabel(intern(link.get().getLabel()));
+            copied.setTooltip(intern(link.get().getTooltip()));
+            return copied;
+        }
+
+        private String[] intern(String[] values) {
+            if (values == null) {
+                return null;
+            }
+            String[] interned = Arrays.copyOf(values, values.length);
+            for (int i = 0; i < interned.length; i++) {
+                interned[i] = intern(interned[i]);
+            }
+            return interned;
+        }
+
+        /**
+         * @return the instance of the string shared by the snapshot
+         */
+        private String intern(String value) {
+            return value == null ? null : strings.computeIfAbsent(value, key -> key);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.snapshot;
+
+import java.util.Optional;
+import ch.ifocusit.plantuml.classdiagram.model.Link;
+import ch.ifocusit.plantuml.classdiagram.model.attribute.Attribute;
+
+/**
+ * Attribute or method parameter of a {@link SnapshotClazz}.
+ *
+ * @author Julien Boz
+ */
+public final class SnapshotAttribute implements Attribute {
+
+    private final String name;
+    private final String typeName;
+    private final Link link;
+
+    SnapshotAttribute(String name, String typeName, Link link) {
+        this.name = name;
+        this.typeName = typeName;
+        this.link = link;
+    }
+
+    @Override
+    public Optional<String> getTypeName() {
+        return Optional.ofNullable(typeName);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Optional<Link> getLink() {
+        return Optional.ofNullable(link);
+    }
+}
@@ -0,0 +1,107 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.snapshot;
+
+import java.util.List;
+import java.util.Optional;
+import ch.ifocusit.plantuml.classdiagram.model.Link;
+import ch.ifocusit.plantuml.classdiagram.model.clazz.Clazz;
+
+/**
+ * Class of a {@link DiagramSnapshot}, identified by its index in the snapshot.
+ *
+ * @author Julien Boz
+ */
+public final class SnapshotClazz implements Clazz {
+
+    private final int id;
+    private final String name;
+    private final Type type;
+    private final Link link;
+    private final List<SnapshotAttribute> attributes;
+    private final List<SnapshotMethod> methods;
+    private final List<String> stereotypes;
+    private final String backgroundColor;
+    private final String borderColor;
+
+    SnapshotClazz(int id, String name, Type type, Link link, List<SnapshotAttribute> attributes,
+            List<SnapshotMethod> methods, List<String> stereotypes, String backgroundColor,
+            String borderColor) {
+        this.id = id;
+        this.name = name;
+        this.type = type;
+        this.link = link;
+        this.attributes = attributes;
+        this.methods = methods;
+        this.stereotypes = stereotypes;
+        this.backgroundColor = backgroundColor;
+        this.borderColor = borderColor;
+    }
+
+    /**
+     * @return the index of this class in {@link DiagramSnapshot#getClasses()}
+     */
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Type getType() {
+        return type;
+    }
+
+    @Override
+    public Optional<Link> getLink() {
+        return Optional.ofNullable(link);
+    }
+
+    @Override
+    public List<SnapshotAttribute> getAttributes() {
+        return attributes;
+    }
+
+    @Override
+    public List<SnapshotMethod> getMethods() {
+        return methods;
+    }
+
+    @Override
+    public Optional<List<String>> getStereotypes() {
+        return Optional.ofNullable(stereotypes);
+    }
+
+    @Override
+    public Optional<String> getBackgroundColor() {
+        return Optional.ofNullable(backgroundColor);
+    }
+
+    @Override
+    public Optional<String> getBorderColor() {
+        return Optional.ofNullable(borderColor);
+    }
+}
@@ -0,0 +1,494 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import ch.ifocusit.plantuml.classdiagram.model.Association;
+import ch.ifocusit.plantuml.classdiagram.model.Association.AssociationType;
+import ch.ifocusit.plantuml.classdiagram.model.Cardinality;
+import ch.ifocusit.plantuml.classdiagram.model.Link;
+import ch.ifocusit.plantuml.classdiagram.model.clazz.Clazz;
+
+/**
+ * Binary file format of a {@link DiagramSnapshot}, to render a diagram again without scanning nor
+ * reflecting its classes.
+ * <p>
+ * A file starts with a magic number, the format version and the fingerprint of the inputs the
+ * snapshot was built from, see {@link #fingerprint(Collection, String...)}. Then come the table of
+ * all the distinct strings and the model, whose strings are referenced by their index in the table.
+ * The file is memory-mapped to be read: each string is decoded once and the model arrays are
+ * filled directly from the mapped buffer.
+ *
+ * @author Julien Boz
+ */
+public final class SnapshotFile {
+
+    private static final int MAGIC = 0x50554D53;
+    private static final int VERSION = 1;
+    private static final int NULL = -1;
+
+    private static final Clazz.Type[] CLAZZ_TYPES = Clazz.Type.values();
+    private static final AssociationType[] ASSOCIATION_TYPES = AssociationType.values();
+    private static final Cardinality[] CARDINALITIES = Cardinality.values();
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Write <code>snapshot</code> to <code>file</code>, atomically replaced.
+     *
+     * @param fingerprint the fingerprint of the snapshot inputs, checked when it is read
+     */
+    public static void write(DiagramSnapshot snapshot, String fingerprint, Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                write(snapshot, fingerprint, out);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Write <code>snapshot</code> to <code>out</code>, which is not closed.
+     */
+    public static void write(DiagramSnapshot snapshot, String fingerprint, OutputStream out)
+            throws IOException {
+        // the model is written first to collect the strings table
+        Writer model = new Writer();
+        model.writeSnapshot(snapshot);
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeUTF(fingerprint);
+        data.writeInt(model.strings.size());
+        for (String value : model.strings) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            data.writeInt(bytes.length);
+            data.write(bytes);
+        }
+        model.bytes.writeTo(data);
+        data.flush();
+    }
+
+    /**
+     * @return the snapshot of <code>file</code>, empty if the file does not exist, has another
+     *         format version or fingerprint, or is corrupted
+     */
+    public static Optional<DiagramSnapshot> read(Path file, String fingerprint) {
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer, fingerprint);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return the snapshot of <code>buffer</code>, empty if it has another format version or
+     *         fingerprint, or is corrupted
+     */
+    public static Optional<DiagramSnapshot> read(ByteBuffer buffer, String fingerprint) {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || !fingerprint.equals(readUtf(buffer))) {
+                return Optional.empty();
+            }
+            return Optional.of(new Reader(buffer).readSnapshot());
+        } catch (RuntimeException e) {
+            // corrupted snapshot, to build again
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Compute a fingerprint of the files and directories a snapshot is built from: their path, size
+     * and modification time, with the content of the directories. <code>settings</code> are the
+     * other inputs, like the builder configuration.
+     *
+     * @return the hexadecimal SHA-256 of the inputs
+     */
+    public static String fingerprint(Collection<Path> inputs, String... settings) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (String setting : settings) {
+            update(digest, String.valueOf(setting));
+        }
+        for (Path input : inputs) {
+            Path path = input.toAbsolutePath().normalize();
+            update(digest, path.toString());
+            if (Files.isDirectory(path)) {
+                List<Path> files;
+                try (Stream<Path> walk = Files.walk(path)) {
+                    files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+                }
+                for (Path file : files) {
+                    update(digest, path.relativize(file).toString());
+                    update(digest, Files.readAttributes(file, BasicFileAttributes.class));
+                }
+            } else if (Files.exists(path)) {
+                update(digest, Files.readAttributes(path, BasicFileAttributes.class));
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static void update(MessageDigest digest, BasicFileAttributes attributes) {
+        update(digest, attributes.size() + ":" + attributes.lastModifiedTime().toMillis());
+    }
+
+    /**
+     * @return a string written by {@link DataOutputStream#writeUTF(String)}, modified UTF-8
+     */
+    private static String readUtf(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        char[] chars = new char[length];
+        int count = 0;
+        int end = buffer.position() + length;
+        while (buffer.position() < end) {
+            int b = buffer.get() & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[count++] = (char) (((b & 0x1F) << 6) | (buffer.get() & 0x3F));
+            } else {
+                chars[count++] = (char) (((b & 0x0F) << 12) | ((buffer.get() & 0x3F) << 6)
+                        | (buffer.get() & 0x3F));
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    /**
+     * Write the model with string references, collecting the strings table.
+     */
+    private static final class Writer {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        private void writeSnapshot(DiagramSnapshot snapshot) throws IOException {
+            writeStrings(snapshot.getStartOptions());
+            writeStrings(snapshot.getEndOptions());
+            writeString(snapshot.getHeader());
+            writeString(snapshot.getTitle());
+            writeString(snapshot.getFooter());
+
+            List<SnapshotClazz> classes = snapshot.getClasses();
+            out.writeInt(classes.size());
+            for (SnapshotClazz clazz : classes) {
+                writeClazz(clazz);
+            }
+
+            List<String> packageNames = snapshot.getPackageNames();
+            out.writeInt(packageNames.size());
+            for (int i = 0; i < packageNames.size(); i++) {
+                writeString(packageNames.get(i));
+                writeIds(snapshot.getPackageClasses(i));
+            }
+            writeIds(snapshot.getTypes());
+
+            out.writeInt(snapshot.getAssociationCount());
+            for (int i = 0; i < snapshot.getAssociationCount(); i++) {
+                Association association = snapshot.getAssociation(i);
+                writeString(association.getaName());
+                writeString(association.getbName());
+                out.writeByte(association.getType().ordinal());
+                writeString(association.getLabel());
+                out.writeByte(association.getaCardinality().ordinal());
+                out.writeByte(association.getbCardinality().ordinal());
+            }
+            out.flush();
+        }
+
+        private void writeClazz(SnapshotClazz clazz) throws IOException {
+            writeString(clazz.getName());
+            out.writeByte(clazz.getType().ordinal());
+            writeLink(clazz.getLink());
+            writeStrings(clazz.getStereotypes().map(values -> values.toArray(new String[0])).orElse(null));
+            writeString(clazz.getBackgroundColor().orElse(null));
+            writeString(clazz.getBorderColor().orElse(null));
+            out.writeInt(clazz.getAttributes().size());
+            for (SnapshotAttribute attribute : clazz.getAttributes()) {
+                writeAttribute(attribute);
+            }
+            out.writeInt(clazz.getMethods().size());
+            for (SnapshotMethod method : clazz.getMethods()) {
+                writeString(method.getName());
+                writeString(method.getReturnTypeName().orElse(null));
+                Optional<SnapshotAttribute[]> parameters = method.getParameters();
+                out.writeInt(parameters.isPresent() ? parameters.get().length : NULL);
+                if (parameters.isPresent()) {
+                    for (SnapshotAttribute parameter : parameters.get()) {
+                        writeAttribute(parameter);
+                    }
+                }
+                writeLink(method.getLink());
+            }
+        }
+
+        private void writeAttribute(SnapshotAttribute attribute) throws IOException {
+            writeString(attribute.getName());
+            writeString(attribute.getTypeName().orElse(null));
+            writeLink(attribute.getLink());
+        }
+
+        private void writeLink(Optional<Link> link) throws IOException {
+            out.writeBoolean(link.isPresent());
+            if (link.isPresent()) {
+                writeString(link.get().getUrl());
+                writeString(link.get().getLabel());
+                writeString(link.get().getTooltip());
+            }
+        }
+
+        private void writeIds(List<SnapshotClazz> classes) throws IOException {
+            out.writeInt(classes.size());
+            for (SnapshotClazz clazz : classes) {
+                out.writeInt(clazz.getId());
+            }
+        }
+
+        private void writeStrings(String[] values) throws IOException {
+            out.writeInt(values == null ? NULL : values.length);
+            if (values != null) {
+                for (String value : values) {
+                    writeString(value);
+                }
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeInt(NULL);
+                return;
+            }
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = strings.size();
+                ids.put(value, id);
+                strings.add(value);
+            }
+            out.writeInt(id);
+        }
+    }
+
+    /**
+     * Read the model from the strings table and the mapped buffer.
+     */
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private final String[] strings;
+
+        private Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.strings = new String[count()];
+            byte[] bytes = new byte[64];
+            for (int i = 0; i < strings.length; i++) {
+                int length = buffer.getInt();
+                if (length > bytes.length) {
+                    bytes = new byte[Math.max(length, 2 * bytes.length)];
+                }
+                buffer.get(bytes, 0, length);
+                strings[i] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            }
+        }
+
+        private DiagramSnapshot readSnapshot() {
+            String[] startOptions = readStrings();
+            String[] endOptions = readStrings();
+            String header = readString();
+            String title = readString();
+            String footer = readString();
+
+            SnapshotClazz[] classes = new SnapshotClazz[count()];
+            for (int id = 0; id < classes.length; id++) {
+                classes[id] = readClazz(id);
+            }
+
+            String[] packageNames = new String[count()];
+            int[][] packageClasses = new int[packageNames.length][];
+            for (int i = 0; i < packageNames.length; i++) {
+                packageNames[i] = readString();
+                packageClasses[i] = readIds(classes.length);
+            }
+            int[] types = readIds(classes.length);
+
+            int associations = count();
+            String[] associationNames = new String[2 * associations];
+            Cardinality[] associationCardinalities = new Cardinality[2 * associations];
+            AssociationType[] associationTypes = new AssociationType[associations];
+            String[] associationLabels = new String[associations];
+            for (int i = 0; i < associations; i++) {
+                associationNames[2 * i] = readString();
+                associationNames[2 * i + 1] = readString();
+                associationTypes[i] = ASSOCIATION_TYPES[buffer.get()];
+                associationLabels[i] = readString();
+                associationCardinalities[2 * i] = CARDINALITIES[buffer.get()];
+                associationCardinalities[2 * i + 1] = CARDINALITIES[buffer.get()];
+            }
+            return new DiagramSnapshot(startOptions, endOptions, header, title, footer, List.of(classes),
+                    packageNames, packageClasses, types, associationNames, associationCardinalities,
+                    associationTypes, associationLabels);
+        }
+
+        private SnapshotClazz readClazz(int id) {
+            String name = readString();
+            Clazz.Type type = CLAZZ_TYPES[buffer.get()];
+            Link link = readLink();
+            String[] stereotypes = readStrings();
+            String backgroundColor = readString();
+            String borderColor = readString();
+            SnapshotAttribute[] attributes = new SnapshotAttribute[count()];
+            for (int i = 0; i < attributes.length; i++) {
+                attributes[i] = readAttribute();
+            }
+            SnapshotMethod[] methods = new SnapshotMethod[count()];
+            for (int i = 0; i < methods.length; i++) {
+                String methodName = readString();
+                String returnTypeName = readString();
+                int parametersCount = nullableCount();
+                SnapshotAttribute[] parameters = parametersCount == NULL ? null
+                        : new SnapshotAttribute[parametersCount];
+                for (int p = 0; p < parametersCount; p++) {
+                    parameters[p] = readAttribute();
+                }
+                methods[i] = new SnapshotMethod(methodName, returnTypeName, parameters, readLink());
+            }
+            return new SnapshotClazz(id, name, type, link, List.of(attributes), List.of(methods),
+                    stereotypes == null ? null : List.of(stereotypes), backgroundColor, borderColor);
+        }
+
+        private SnapshotAttribute readAttribute() {
+            return new SnapshotAttribute(readString(), readString(), readLink());
+        }
+
+        private Link readLink() {
+            if (buffer.get() == 0) {
+                return null;
+            }
+            Link link = new Link();
+            link.setUrl(readString());
+            link.setLabel(readString());
+            link.setTooltip(readString());
+            return link;
+        }
+
+        private int[] readIds(int classesCount) {
+            int[] ids = new int[count()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = buffer.getInt();
+                if (ids[i] < 0 || ids[i] >= classesCount) {
+                    throw new IllegalArgumentException("Invalid class id " + ids[i]);
+                }
+            }
+            return ids;
+        }
+
+        private String[] readStrings() {
+            int count = nullableCount();
+            if (count == NULL) {
+                return null;
+            }
+            String[] values = new String[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = readString();
+            }
+            return values;
+        }
+
+        /**
+         * @return a count of items, checked against the remaining bytes, each item taking at least
+         *         one of them
+         */
+        private int count() {
+            int count = buffer.getInt();
+            if (count < 0 || count > buffer.remaining()) {
+                throw new IllegalArgumentException("Invalid count " + count);
+            }
+            return count;
+        }
+
+        private int nullableCount() {
+            if (buffer.getInt(buffer.position()) == NULL) {
+                return buffer.getInt();
+            }
+            return count();
+        }
+
+        private String readString() {
+            int id = buffer.getInt();
+            return id == NULL ? null : strings[id];
+        }
+    }
+}
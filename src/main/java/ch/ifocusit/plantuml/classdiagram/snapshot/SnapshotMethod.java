@@ -0,0 +1,68 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.snapshot;
+
+import java.util.Optional;
+import ch.ifocusit.plantuml.classdiagram.model.Link;
+import ch.ifocusit.plantuml.classdiagram.model.method.Method;
+
+/**
+ * Method of a {@link SnapshotClazz}.
+ *
+ * @author Julien Boz
+ */
+public final class SnapshotMethod implements Method {
+
+    private final String name;
+    private final String returnTypeName;
+    // null when the method parameters are not rendered
+    private final SnapshotAttribute[] parameters;
+    private final Link link;
+
+    SnapshotMethod(String name, String returnTypeName, SnapshotAttribute[] parameters, Link link) {
+        this.name = name;
+        this.returnTypeName = returnTypeName;
+        this.parameters = parameters;
+        this.link = link;
+    }
+
+    @Override
+    public Optional<String> getReturnTypeName() {
+        return Optional.ofNullable(returnTypeName);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Optional<SnapshotAttribute[]> getParameters() {
+        return parameters == null ? Optional.empty() : Optional.of(parameters.clone());
+    }
+
+    @Override
+    public Optional<Link> getLink() {
+        return Optional.ofNullable(link);
+    }
+}
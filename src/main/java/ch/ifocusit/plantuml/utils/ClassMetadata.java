@@ -0,0 +1,320 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.utils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reflection metadata of a class, computed once and shared by all builders.
+ * <p>
+ * Metadata is stored in a {@link ClassValue}, so it is held by the class itself and does not
+ * prevent its class loader from being garbage collected. Members metadata is computed on first use.
+ *
+ * @author Julien Boz
+ */
+@SuppressWarnings("rawtypes")
+public final class ClassMetadata {
+
+    private static final ClassValue<ClassMetadata> METADATA = new ClassValue<>() {
+        @Override
+        protected ClassMetadata computeValue(Class<?> type) {
+            return new ClassMetadata(type);
+        }
+    };
+
+    private static final int GETTER = 1;
+    private static final int SETTER = 2;
+
+    // records are not available in java 11
+    private static final Method GET_RECORD_COMPONENTS = findMethod(Class.class, "getRecordComponents");
+    private static final Method GET_ACCESSOR = findMethod("java.lang.reflect.RecordComponent", "getAccessor");
+
+    private final Class<?> type;
+    private final String simpleName;
+    private final List<Field> declaredFields;
+    private final List<Method> declaredMethods;
+    private volatile List<Class<?>> allInterfaces;
+    private final Map<Object, MemberTypes> members = new ConcurrentHashMap<>();
+    private volatile Map<Method, Integer> accessors;
+
+    private ClassMetadata(Class<?> type) {
+        this.type = type;
+        this.simpleName = ClassUtils.getSimpleName(type);
+        this.declaredFields = List.of(type.getDeclaredFields());
+        this.declaredMethods = List.of(type.getDeclaredMethods());
+    }
+
+    public static ClassMetadata of(Class<?> aClass) {
+        return METADATA.get(aClass);
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return the class name as rendered by {@link ClassUtils#getSimpleName(Class)}
+     */
+    public String getSimpleName() {
+        return simpleName;
+    }
+
+    public List<Field> getDeclaredFields() {
+        return declaredFields;
+    }
+
+    public List<Method> getDeclaredMethods() {
+        return declaredMethods;
+    }
+
+    public Class<?> getSuperclass() {
+        return type.getSuperclass();
+    }
+
+    /**
+     * @return all interfaces implemented by the class and its super classes, in hierarchy order
+     */
+    public List<Class<?>> getAllInterfaces() {
+        List<Class<?>> interfaces = allInterfaces;
+        if (interfaces == null) {
+            interfaces = Collections.unmodifiableList(ClassUtils.getAllInterfaces(type));
+            allInterfaces = interfaces;
+        }
+        return interfaces;
+    }
+
+    public Set<Class> getConcernedTypes(Field field) {
+        return fieldTypes(field).concernedTypes;
+    }
+
+    /**
+     * @return the field type name as rendered by {@link ClassUtils#getSimpleName(java.lang.reflect.Type)}
+     */
+    public String getTypeName(Field field) {
+        return fieldTypes(field).typeName;
+    }
+
+    public Set<Class> getConcernedTypes(Method method) {
+        return methodTypes(method).concernedTypes;
+    }
+
+    public Set<Class> getConcernedReturnedTypes(Method method) {
+        return methodTypes(method).concernedReturnedTypes;
+    }
+
+    /**
+     * @return the returned type name, null for void methods
+     */
+    public String getReturnTypeName(Method method) {
+        return methodTypes(method).typeName;
+    }
+
+    public Set<Class> getConcernedTypes(Parameter parameter) {
+        return parameterTypes(parameter).concernedTypes;
+    }
+
+    public String getTypeName(Parameter parameter) {
+        return parameterTypes(parameter).typeName;
+    }
+
+    /**
+     * @return true if the method is a property read method, as {@link java.beans.Introspector}
+     *         would find it, or a record component accessor
+     */
+    public boolean isGetter(Method method) {
+        return (accessors().getOrDefault(method, 0) & GETTER) != 0;
+    }
+
+    /**
+     * @return true if the method is a property write method, as {@link java.beans.Introspector}
+     *         would find it
+     */
+    public boolean isSetter(Method method) {
+        return (accessors().getOrDefault(method, 0) & SETTER) != 0;
+    }
+
+    private Map<Method, Integer> accessors() {
+        Map<Method, Integer> result = accessors;
+        if (result == null) {
+            result = Collections.unmodifiableMap(findAccessors());
+            accessors = result;
+        }
+        return result;
+    }
+
+    /**
+     * Same rules as the JDK <code>PropertyInfo</code>, applied on the public methods of the class,
+     * inherited ones included: a declared setter is paired with an inherited getter.
+     */
+    private Map<Method, Integer> findAccessors() {
+        Map<String, Method> isGetters = new HashMap<>();
+        Map<String, List<Method>> getters = new LinkedHashMap<>();
+        Map<String, List<Method>> setters = new LinkedHashMap<>();
+        for (Method method : type.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            String name = method.getName();
+            Class<?> returnType = method.getReturnType();
+            if (method.getParameterCount() == 0) {
+                if (returnType.equals(boolean.class) && isPrefix(name, "is")) {
+                    isGetters.put(name.substring(2), method);
+                } else if (!returnType.equals(void.class) && isPrefix(name, "get")) {
+                    getters.computeIfAbsent(name.substring(3), key -> new ArrayList<>()).add(method);
+                }
+            } else if (method.getParameterCount() == 1 && returnType.equals(void.class)
+                    && isPrefix(name, "set")) {
+                setters.computeIfAbsent(name.substring(3), key -> new ArrayList<>()).add(method);
+            }
+        }
+
+        Map<Method, Integer> found = new HashMap<>();
+        Set<String> properties = new HashSet<>(isGetters.keySet());
+        properties.addAll(getters.keySet());
+        properties.addAll(setters.keySet());
+        for (String property : properties) {
+            // "is" getter wins, otherwise the most specific getter
+            Method read = isGetters.get(property);
+            if (read == null) {
+                for (Method getter : getters.getOrDefault(property, List.of())) {
+                    if (read == null || read.getReturnType().isAssignableFrom(getter.getReturnType())) {
+                        read = getter;
+                    }
+                }
+            }
+            // the most specific setter compatible with the read type
+            Method write = null;
+            Class<?> writeType = read == null ? null : read.getReturnType();
+            for (Method setter : setters.getOrDefault(property, List.of())) {
+                Class<?> parameterType = setter.getParameterTypes()[0];
+                if (writeType == null) {
+                    write = setter;
+                    writeType = parameterType;
+                } else if (writeType.isAssignableFrom(parameterType) && (write == null
+                        || write.getParameterTypes()[0].isAssignableFrom(parameterType))) {
+                    write = setter;
+                    writeType = parameterType;
+                }
+            }
+            if (read != null) {
+                found.merge(read, GETTER, (a, b) -> a | b);
+            }
+            if (write != null) {
+                found.merge(write, SETTER, (a, b) -> a | b);
+            }
+        }
+        for (Method accessor : recordAccessors()) {
+            found.merge(accessor, GETTER, (a, b) -> a | b);
+        }
+        return found;
+    }
+
+    private List<Method> recordAccessors() {
+        if (GET_RECORD_COMPONENTS == null || GET_ACCESSOR == null) {
+            return List.of();
+        }
+        try {
+            Object[] components = (Object[]) GET_RECORD_COMPONENTS.invoke(type);
+            if (components == null) {
+                return List.of(); // not a record
+            }
+            List<Method> methods = new ArrayList<>(components.length);
+            for (Object component : components) {
+                methods.add((Method) GET_ACCESSOR.invoke(component));
+            }
+            return methods;
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isPrefix(String name, String prefix) {
+        return name.length() > prefix.length() && name.startsWith(prefix);
+    }
+
+    private static Method findMethod(Class<?> aClass, String name) {
+        try {
+            return aClass.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Method findMethod(String className, String name) {
+        try {
+            return findMethod(Class.forName(className), name);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
+    private MemberTypes fieldTypes(Field field) {
+        return members.computeIfAbsent(field,
+                key -> new MemberTypes(ClassUtils.getConcernedTypes(field), null,
+                        ClassUtils.getSimpleName(field.getGenericType())));
+    }
+
+    private MemberTypes methodTypes(Method method) {
+        return members.computeIfAbsent(method, key -> {
+            Set<Class> returnedTypes = new HashSet<>();
+            returnedTypes.add(method.getReturnType());
+            returnedTypes.addAll(ClassUtils.getGenericTypes(method));
+            return new MemberTypes(ClassUtils.getConcernedTypes(method), returnedTypes,
+                    method.getReturnType().equals(Void.TYPE) ? null
+                            : ClassUtils.getSimpleName(method.getGenericReturnType()));
+        });
+    }
+
+    private MemberTypes parameterTypes(Parameter parameter) {
+        return members.computeIfAbsent(parameter,
+                key -> new MemberTypes(ClassUtils.getConcernedTypes(parameter), null,
+                        ClassUtils.getSimpleName(parameter.getParameterizedType())));
+    }
+
+    private static final class MemberTypes {
+        private final Set<Class> concernedTypes;
+        private final Set<Class> concernedReturnedTypes;
+        private final String typeName;
+
+        private MemberTypes(Set<Class> concernedTypes, Set<Class> concernedReturnedTypes,
+                String typeName) {
+            this.concernedTypes = Collections.unmodifiableSet(concernedTypes);
+            this.concernedReturnedTypes = concernedReturnedTypes == null ? null
+                    : Collections.unmodifiableSet(concernedReturnedTypes);
+            this.typeName = typeName;
+        }
+    }
+}
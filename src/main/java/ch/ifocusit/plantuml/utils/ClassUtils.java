@@ -22,8 +22,6 @@
  */
 package ch.ifocusit.plantuml.utils;
 
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
@@ -31,7 +29,6 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -150,27 +147,11 @@ public class ClassUtils extends org.apache.commons.lang3.ClassUtils {
     }
 
     public static boolean isGetter(Method method) {
-        try {
-            return Stream
-                    .of(Introspector.getBeanInfo(method.getDeclaringClass())
-                            .getPropertyDescriptors())
-                    .map(desc -> desc.getReadMethod()).filter(Objects::nonNull)
-                    .anyMatch(getter -> getter.equals(method));
-        } catch (IntrospectionException e) {
-            throw new IllegalStateException(e);
-        }
+        return ClassMetadata.of(method.getDeclaringClass()).isGetter(method);
     }
 
     public static boolean isSetter(Method method) {
-        try {
-            return Stream
-                    .of(Introspector.getBeanInfo(method.getDeclaringClass())
-                            .getPropertyDescriptors())
-                    .map(desc -> desc.getWriteMethod()).filter(Objects::nonNull)
-                    .anyMatch(setter -> setter.equals(method));
-        } catch (IntrospectionException e) {
-            throw new IllegalStateException(e);
-        }
+        return ClassMetadata.of(method.getDeclaringClass()).isSetter(method);
     }
 
     public static boolean isNotGetterSetter(Method method) {
@@ -0,0 +1,348 @@
+/*-
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ch.ifocusit.plantuml.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Exclusion patterns compiled once, matched against <code>className.memberName</code>.
+ * <p>
+ * A pattern is a regular expression matching the whole member name, unless prefixed by:
+ * <ul>
+ * <li><code>prefix:</code> the member name starts with the given text;</li>
+ * <li><code>glob:</code> <code>*</code> matches any characters but a dot, <code>**</code> any
+ * characters and <code>?</code> one character.</li>
+ * </ul>
+ * Literal patterns, literal prefixes (<code>com\.acme\..*</code>) and literal suffixes
+ * (<code>.*\.ignored</code>) are looked up in character tries, the other regular expressions are
+ * combined into a single one. Matching a member allocates nothing and a matcher can be shared by
+ * many threads.
+ *
+ * @author Julien Boz
+ */
+public final class ExclusionMatcher {
+
+    public static final String PREFIX = "prefix:";
+    public static final String GLOB = "glob:";
+
+    private static final String ANY = ".*";
+    private static final String ANY_GLOB = "**";
+    private static final String REGEX_META = ".[]{}()*+?^$|";
+    // groups of these patterns cannot be renumbered in a combined expression
+    private static final Pattern GROUP_REFERENCE = Pattern.compile("\\\\[1-9]|\\\\k<|\\(\\?<[a-zA-Z]");
+
+    private static final ExclusionMatcher NONE = new ExclusionMatcher(List.of());
+
+    private final List<String> patterns;
+    private final Trie exact = new Trie(false, false);
+    private final Trie prefixes = new Trie(true, false);
+    private final Trie suffixes = new Trie(true, true);
+    private final List<Pattern> regexes = new ArrayList<>();
+    private final ThreadLocal<MatchState> state;
+
+    private ExclusionMatcher(Collection<String> patterns) {
+        this.patterns = List.copyOf(patterns);
+        List<String> combined = new ArrayList<>();
+        for (String pattern : patterns) {
+            if (pattern.startsWith(PREFIX)) {
+                prefixes.add(pattern.substring(PREFIX.length()));
+            } else if (pattern.startsWith(GLOB)) {
+                addGlob(pattern.substring(GLOB.length()), combined);
+            } else {
+                addRegex(pattern, combined);
+            }
+        }
+        if (!combined.isEmpty()) {
+            regexes.add(Pattern.compile(String.join("|", combined)));
+        }
+        exact.freeze();
+        prefixes.freeze();
+        suffixes.freeze();
+        this.state = ThreadLocal.withInitial(() -> new MatchState(regexes));
+    }
+
+    public static ExclusionMatcher none() {
+        return NONE;
+    }
+
+    public static ExclusionMatcher compile(String... patterns) {
+        return compile(Arrays.asList(patterns));
+    }
+
+    /**
+     * @throws java.util.regex.PatternSyntaxException if a regular expression is invalid
+     */
+    public static ExclusionMatcher compile(Collection<String> patterns) {
+        return patterns.isEmpty() ? NONE : new ExclusionMatcher(patterns);
+    }
+
+    /**
+     * @return the source patterns
+     */
+    public List<String> getPatterns() {
+        return patterns;
+    }
+
+    public boolean isEmpty() {
+        return patterns.isEmpty();
+    }
+
+    /**
+     * @return true if <code>className.memberName</code> matches one of the patterns
+     */
+    public boolean matches(String className, String memberName) {
+        if (patterns.isEmpty()) {
+            return false;
+        }
+        MatchState current = state.get();
+        CharSequence member = current.member.of(className, memberName);
+        if (exact.matches(member) || prefixes.matches(member) || suffixes.matches(member)) {
+            return true;
+        }
+        for (Matcher matcher : current.matchers) {
+            if (matcher.reset(member).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addRegex(String regex, List<String> combined) {
+        int length = regex.length();
+        if (isLiteral(regex, 0, length)) {
+            exact.add(unescape(regex, 0, length));
+        } else if (regex.endsWith(ANY) && isLiteral(regex, 0, length - ANY.length())) {
+            prefixes.add(unescape(regex, 0, length - ANY.length()));
+        } else if (regex.startsWith(ANY) && isLiteral(regex, ANY.length(), length)) {
+            suffixes.add(unescape(regex, ANY.length(), length));
+        } else if (GROUP_REFERENCE.matcher(regex).find()) {
+            regexes.add(Pattern.compile(regex));
+        } else {
+            // fail on the faulty pattern rather than on the combined one
+            Pattern.compile(regex);
+            combined.add("(?:" + regex + ")");
+        }
+    }
+
+    private void addGlob(String glob, List<String> combined) {
+        boolean anyStart = glob.startsWith(ANY_GLOB);
+        boolean anyEnd = glob.length() > ANY_GLOB.length() && glob.endsWith(ANY_GLOB);
+        String literal = glob.substring(anyStart ? ANY_GLOB.length() : 0,
+                glob.length() - (anyEnd ? ANY_GLOB.length() : 0));
+        if (literal.indexOf('*') >= 0 || literal.indexOf('?') >= 0 || anyStart && anyEnd) {
+            combined.add("(?:" + globToRegex(glob) + ")");
+        } else if (anyEnd) {
+            prefixes.add(literal);
+        } else if (anyStart) {
+            suffixes.add(literal);
+        } else {
+            exact.add(literal);
+        }
+    }
+
+    private static String globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int literalStart = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c != '*' && c != '?') {
+                continue;
+            }
+            if (literalStart < i) {
+                regex.append(Pattern.quote(glob.substring(literalStart, i)));
+            }
+            if (c == '?') {
+                regex.append('.');
+            } else if (glob.startsWith(ANY_GLOB, i)) {
+                regex.append(ANY);
+                i++;
+            } else {
+                regex.append("[^.]*");
+            }
+            literalStart = i + 1;
+        }
+        if (literalStart < glob.length()) {
+            regex.append(Pattern.quote(glob.substring(literalStart)));
+        }
+        return regex.toString();
+    }
+
+    /**
+     * @return true if this part of the regex only matches itself: plain characters or escaped
+     *         punctuation
+     */
+    private static boolean isLiteral(String regex, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 >= end || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                    return false;
+                }
+                i++;
+            } else if (REGEX_META.indexOf(c) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String unescape(String regex, int start, int end) {
+        StringBuilder literal = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = regex.charAt(i);
+            literal.append(c == '\\' ? regex.charAt(++i) : c);
+        }
+        return literal.toString();
+    }
+
+    /**
+     * Member name and matchers reused by a thread.
+     */
+    private static final class MatchState {
+        private final MemberName member = new MemberName();
+        private final Matcher[] matchers;
+
+        private MatchState(List<Pattern> patterns) {
+            matchers = patterns.stream().map(pattern -> pattern.matcher(""))
+                    .toArray(Matcher[]::new);
+        }
+    }
+
+    /**
+     * <code>className.memberName</code> without concatenation.
+     */
+    private static final class MemberName implements CharSequence {
+        private String className;
+        private String memberName;
+
+        private MemberName of(String className, String memberName) {
+            this.className = className;
+            this.memberName = memberName;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return className.length() + 1 + memberName.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            int classLength = className.length();
+            if (index < classLength) {
+                return className.charAt(index);
+            }
+            return index == classLength ? '.' : memberName.charAt(index - classLength - 1);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return className + "." + memberName;
+        }
+    }
+
+    /**
+     * Character trie, built then frozen into sorted arrays.
+     */
+    private static final class Trie {
+        // a prefix trie matches any continuation of its values
+        private final boolean prefix;
+        // values are walked from their end, to match suffixes
+        private final boolean reversed;
+        private final Node root = new Node();
+        private boolean empty = true;
+
+        private Trie(boolean prefix, boolean reversed) {
+            this.prefix = prefix;
+            this.reversed = reversed;
+        }
+
+        private void add(String value) {
+            Node node = root;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(reversed ? value.length() - 1 - i : i);
+                node = node.building.computeIfAbsent(c, key -> new Node());
+            }
+            node.terminal = true;
+            empty = false;
+        }
+
+        private void freeze() {
+            root.freeze();
+        }
+
+        private boolean matches(CharSequence value) {
+            if (empty) {
+                return false;
+            }
+            Node node = root;
+            int length = value.length();
+            for (int i = 0; i < length; i++) {
+                if (prefix && node.terminal) {
+                    return true;
+                }
+                node = node.child(value.charAt(reversed ? length - 1 - i : i));
+                if (node == null) {
+                    return false;
+                }
+            }
+            return node.terminal;
+        }
+    }
+
+    private static final class Node {
+        private Map<Character, Node> building = new TreeMap<>();
+        private char[] keys;
+        private Node[] children;
+        private boolean terminal;
+
+        private void freeze() {
+            keys = new char[building.size()];
+            children = new Node[building.size()];
+            int i = 0;
+            for (Map.Entry<Character, Node> entry : building.entrySet()) {
+                keys[i] = entry.getKey();
+                children[i++] = entry.getValue();
+                entry.getValue().freeze();
+            }
+            building = null;
+        }
+
+        private Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index < 0 ? null : children[index];
+        }
+    }
+}
@@ -24,12 +24,18 @@ package ch.ifocusit.plantuml;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 import org.junit.jupiter.api.Test;
+import ch.ifocusit.plantuml.classdiagram.model.Link;
+import ch.ifocusit.plantuml.classdiagram.model.attribute.Attribute;
 import ch.ifocusit.plantuml.classdiagram.model.Association.AssociationType;
 import ch.ifocusit.plantuml.classdiagram.model.Cardinality;
 import ch.ifocusit.plantuml.classdiagram.model.attribute.SimpleAttribute;
 import ch.ifocusit.plantuml.classdiagram.model.clazz.Clazz;
 import ch.ifocusit.plantuml.classdiagram.model.clazz.SimpleClazz;
+import ch.ifocusit.plantuml.classdiagram.model.method.Method;
 
 public class PlantUmlBuilderTest {
 
@@ -88,4 +94,85 @@ public class PlantUmlBuilderTest {
                                                 + CR + "\"Car\" --> \"*\" \"Wheel\" : wheels" + CR
                                                 + "\"Price\" --> \"Devise\"" + CR);
         }
+
+        @Test
+        public void buildMemberLinks() {
+                Link link = new Link();
+                link.setUrl("http://wheel");
+                link.setTooltip("wheel");
+                link.setLabel("see");
+                final String diagram = new PlantUmlBuilder()
+                                .addType(new LinkedClazz("Car", link)).build();
+
+                assertThat(diagram).isEqualTo("class \"Car\" [[http://wheel{wheel}]] {" + CR
+                                + "  wheel : Wheel [[[http://wheel{wheel} see]]]" + CR
+                                + "  changeWheel(Wheel, Price) : Wheel [[[http://wheel{wheel} see]]]" + CR
+                                + "}" + CR + CR);
+        }
+
+        private static class LinkedClazz implements Clazz {
+                private final String name;
+                private final List<Attribute> attributes = new ArrayList<>();
+                private final List<Method> methods = new ArrayList<>();
+                private final Optional<Link> link;
+
+                LinkedClazz(String name, Link link) {
+                        this.name = name;
+                        this.link = Optional.of(link);
+                        Attribute[] params = { new SimpleAttribute("wheel", "Wheel"),
+                                        new SimpleAttribute("price", "Price") };
+                        attributes.add(new SimpleAttribute("wheel", "Wheel") {
+                                @Override
+                                public Optional<Link> getLink() {
+                                        return LinkedClazz.this.link;
+                                }
+                        });
+                        methods.add(new Method() {
+                                @Override
+                                public Optional<String> getReturnTypeName() {
+                                        return Optional.of("Wheel");
+                                }
+
+                                @Override
+                                public String getName() {
+                                        return "changeWheel";
+                                }
+
+                                @Override
+                                public Optional<? extends Attribute[]> getParameters() {
+                                        return Optional.of(params);
+                                }
+
+                                @Override
+                                public Optional<Link> getLink() {
+                                        return LinkedClazz.this.link;
+                                }
+                        });
+                }
+
+                @Override
+                public String getName() {
+                        return name;
+                }
+
+                @Override
+                public Type getType() {
+                        return Type.CLASS;
+                }
+
+                @Override
+                public Optional<Link> getLink() {
+                        return link;
+                }
+
+                @Override
+                public List<Attribute> getAttributes() {
+                        return attributes;
+                }
+
+                @Override
+                public List<Method> getMethods() {
+                        return methods;
+                }
+        }
 }
@@ -0,0 +1,176 @@
+/*
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import ch.ifocusit.plantuml.test.helper.domain.Devise;
+import ch.ifocusit.plantuml.test.helper.domain.Driver;
+import ch.ifocusit.plantuml.test.helper.domain.Price;
+import ch.ifocusit.plantuml.test.helper.domain.material.Car;
+import ch.ifocusit.plantuml.test.helper.domain.material.Wheel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BuildAsyncTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static ClassDiagramBuilder newBuilder() {
+        return new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored")
+                .addClasses(Car.class, Driver.class, Price.class, Wheel.class, Devise.class);
+    }
+
+    @Test
+    void asyncBuildShouldReportProgress() throws Exception {
+        // given
+        List<BuildProgress> progress = new CopyOnWriteArrayList<>();
+
+        // when
+        String diagram = newBuilder().buildAsync(executor, progress::add).get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(diagram).isEqualTo(newBuilder().build());
+        assertThat(progress).extracting(BuildProgress::getPhase).isSorted()
+                .contains(BuildPhase.READ_CLASSES, BuildPhase.ADD_ASSOCIATIONS);
+        BuildProgress last = progress.get(progress.size() - 1);
+        assertThat(last.getClassesRead()).isEqualTo(5);
+        assertThat(last.getAssociationsDetected()).isPositive();
+        assertThat(last.getRenderedLength()).isPositive();
+        assertThat(progress).extracting(BuildProgress::getRenderedLength).isSorted();
+    }
+
+    @Test
+    void asyncBuildShouldReportPackagesAndDetectionProgress() throws Exception {
+        // given
+        List<BuildProgress> progress = new CopyOnWriteArrayList<>();
+        ClassDiagramBuilder builder = newBuilder().addPackage(Driver.class.getPackage(), Car.class.getPackage());
+
+        // when
+        builder.buildAsync(executor, progress::add).get(5, TimeUnit.SECONDS);
+
+        // then
+        List<BuildProgress> packages = progress.stream().filter(step -> step.getPhase() == BuildPhase.ADD_PACKAGES)
+                .collect(Collectors.toList());
+        // one step per scanned package, then the phase end
+        assertThat(packages).hasSize(3);
+        List<BuildProgress> detection = progress.stream()
+                .filter(step -> step.getPhase() == BuildPhase.DETECT_ASSOCIATIONS).collect(Collectors.toList());
+        // one step per class, then the phase end
+        assertThat(detection).hasSize(6);
+        assertThat(detection.subList(0, 5)).extracting(BuildProgress::getAssociationsDetected).isSorted();
+        assertThat(detection.get(0).getAssociationsDetected()).isPositive();
+    }
+
+    @Test
+    void progressShouldOnlyCountTheRunningBuild() throws Exception {
+        // given
+        ClassDiagramBuilder builder = newBuilder();
+        List<BuildProgress> first = new CopyOnWriteArrayList<>();
+        List<BuildProgress> second = new CopyOnWriteArrayList<>();
+
+        // when
+        String diagram = builder.buildAsync(executor, first::add).get(5, TimeUnit.SECONDS);
+        builder.buildAsync(executor, second::add).get(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(first.get(first.size() - 1).getRenderedLength()).isPositive().isLessThan(diagram.length());
+        assertThat(second).usingRecursiveFieldByFieldElementComparator().isEqualTo(first);
+    }
+
+    @Test
+    void cancelledBuildShouldStop() throws InterruptedException {
+        // given
+        List<BuildProgress> progress = new CopyOnWriteArrayList<>();
+        AtomicReference<CompletableFuture<String>> future = new AtomicReference<>();
+        CountDownLatch started = new CountDownLatch(1);
+        // hold the build until its future is known
+        executor.execute(() -> await(started));
+
+        // when
+        future.set(newBuilder().buildAsync(executor, step -> {
+            progress.add(step);
+            future.get().cancel(false);
+        }));
+        started.countDown();
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        // then
+        assertThat(future.get()).isCancelled();
+        assertThatThrownBy(future.get()::join).isInstanceOf(CancellationException.class);
+        assertThat(progress).extracting(BuildProgress::getPhase).containsExactly(BuildPhase.READ_CLASSES);
+    }
+
+    @Test
+    void buildShouldStopAtDeadline() throws InterruptedException {
+        // given
+        List<BuildProgress> progress = new CopyOnWriteArrayList<>();
+
+        // when
+        CompletableFuture<String> future = newBuilder().buildAsync(executor, Duration.ofMillis(50), step -> {
+            progress.add(step);
+            sleep(20);
+        });
+
+        // then
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        assertThat(progress).extracting(BuildProgress::getPhase).doesNotContain(BuildPhase.ADD_ASSOCIATIONS);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import ch.ifocusit.plantuml.classdiagram.model.Link;
+import ch.ifocusit.plantuml.test.helper.domain.Driver;
+import ch.ifocusit.plantuml.test.helper.domain.material.Car;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingLinkMakerTest {
+
+    @Test
+    void linksShouldBeMadeOnceAcrossBuilds() {
+        // given
+        AtomicInteger calls = new AtomicInteger();
+        CachingLinkMaker linkMaker = new CachingLinkMaker(new LinkMaker() {
+            @Override
+            public Optional<Link> getFieldLink(Field field) {
+                calls.incrementAndGet();
+                if (!field.getName().equals("brand")) {
+                    return Optional.empty();
+                }
+                Link link = new Link();
+                link.setUrl("https://link.com/" + field.getName());
+                return Optional.of(link);
+            }
+        }, 1_000);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // when
+            String first = new ClassDiagramBuilder().<ClassDiagramBuilder>withLinkMaker(linkMaker)
+                    .<ClassDiagramBuilder>withExecutor(executor).addClasses(Car.class, Driver.class).build();
+            int firstCalls = calls.get();
+            String second = new ClassDiagramBuilder().<ClassDiagramBuilder>withLinkMaker(linkMaker)
+                    .<ClassDiagramBuilder>withExecutor(executor).addClasses(Car.class, Driver.class).build();
+
+            // then
+            assertThat(first).isEqualTo(second).contains("https://link.com/brand");
+            assertThat(firstCalls).isPositive();
+            assertThat(calls).hasValue(firstCalls);
+            assertThat(linkMaker.size()).isGreaterThanOrEqualTo(firstCalls);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
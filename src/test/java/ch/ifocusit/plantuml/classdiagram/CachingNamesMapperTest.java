@@ -0,0 +1,95 @@
+/*
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import ch.ifocusit.plantuml.test.helper.domain.Driver;
+import ch.ifocusit.plantuml.test.helper.domain.Price;
+import ch.ifocusit.plantuml.test.helper.domain.material.Car;
+import ch.ifocusit.plantuml.test.helper.domain.material.Wheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingNamesMapperTest {
+
+    private final Map<Class<?>, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+    private final NamesMapper counting = new NamesMapper() {
+        @Override
+        public String getClassName(Class aClass) {
+            calls.computeIfAbsent(aClass, c -> new AtomicInteger()).incrementAndGet();
+            return "My" + aClass.getSimpleName();
+        }
+    };
+
+    @Test
+    void classNameShouldBeMappedOnceAcrossBuilds() {
+        // given
+        CachingNamesMapper mapper = new CachingNamesMapper(counting, 1_000);
+
+        // when
+        String first = new ClassDiagramBuilder().withNamesMapper(mapper).<ClassDiagramBuilder>excludes(".*\\.ignored")
+                .addClasses(Car.class, Driver.class, Wheel.class).build();
+        String second = new ClassDiagramBuilder().withNamesMapper(mapper).<ClassDiagramBuilder>excludes(".*\\.ignored")
+                .addClasses(Car.class, Driver.class, Wheel.class).build();
+
+        // then
+        assertThat(first).isEqualTo(second).contains("class \"MyCar\"").contains("\"MyCar\" --> \"*\" \"MyWheel\"");
+        assertThat(calls.get(Car.class)).hasValue(1);
+        assertThat(calls.get(Wheel.class)).hasValue(1);
+        assertThat(mapper.stats().hitCount()).isPositive();
+    }
+
+    @Test
+    void invalidatedNamesShouldBeMappedAgain() {
+        // given
+        CachingNamesMapper mapper = new CachingNamesMapper(counting, 1_000);
+        mapper.getClassName(Car.class);
+        mapper.getClassName(Price.class);
+
+        // when
+        mapper.invalidate(Car.class::equals);
+        mapper.getClassName(Car.class);
+        mapper.getClassName(Price.class);
+
+        // then
+        assertThat(calls.get(Car.class)).hasValue(2);
+        assertThat(calls.get(Price.class)).hasValue(1);
+        assertThat(mapper.size()).isEqualTo(2);
+    }
+
+    @Test
+    void cacheShouldBeBounded() {
+        // given
+        CachingNamesMapper mapper = new CachingNamesMapper(counting, 1);
+
+        // when
+        mapper.getClassName(Car.class);
+        mapper.getClassName(Price.class);
+        mapper.getClassName(Car.class);
+
+        // then
+        assertThat(mapper.size()).isEqualTo(1);
+        assertThat(calls.get(Car.class)).hasValue(2);
+    }
+}
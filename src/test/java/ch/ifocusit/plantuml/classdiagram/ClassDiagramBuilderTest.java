@@ -31,14 +31,31 @@ import ch.ifocusit.plantuml.test.helper.service.AccessDataService;
 import ch.ifocusit.plantuml.utils.ClassUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * @author Julien Boz
@@ -48,11 +65,24 @@ class ClassDiagramBuilderTest {
 
     private static final String CR = PlantUmlBuilder.NEWLINE;
 
-    @Test
-    void buildShouldGenerateDiagram() throws Exception {
-        String expected = IOUtils.toString(
+    /**
+     * @return a builder of the domain diagram, see {@link #domainDiagram()}
+     */
+    private static ClassDiagramBuilder newDomainBuilder() {
+        return new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored", "Machine")
+                .addPackage(Vehicule.class.getPackage()).addClasses(Vehicule.class,
+                        Car.class, Driver.class, Price.class, Wheel.class, Devise.class);
+    }
+
+    private String domainDiagram() throws IOException {
+        return IOUtils.toString(
                 Objects.requireNonNull(this.getClass().getResourceAsStream("/domain-diagram.plantuml")),
                 Charset.defaultCharset());
+    }
+
+    @Test
+    void buildShouldGenerateDiagram() throws Exception {
+        String expected = domainDiagram();
 
         // tag::createSimple[]
         String diagram = new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored", "Machine")
@@ -64,6 +94,231 @@ class ClassDiagramBuilderTest {
         assertThat(diagram).isEqualTo(expected);
     }
 
+    @Test
+    void buildShouldListPackageFromBytecode() throws Exception {
+        String expected = domainDiagram();
+
+        String diagram = newDomainBuilder().readPackagesFromBytecode().build();
+
+        assertThat(diagram).isEqualTo(expected);
+    }
+
+    @Test
+    void buildShouldListPackageFromClasspathIndex(@TempDir Path temp) throws Exception {
+        String expected = domainDiagram();
+
+        ClassDiagramBuilder builder = newDomainBuilder().withClasspathIndex(temp.resolve("classpath.idx"));
+
+        assertThat(builder.build()).isEqualTo(expected);
+        // second build reads the index file
+        assertThat(builder.build()).isEqualTo(expected);
+    }
+
+    @Test
+    void buildShouldListPackageFromExternalClasspath(@TempDir Path temp) throws Exception {
+        // given
+        Path classes = temp.resolve("classes");
+        Path helper = Path.of(Vehicule.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        Path domain = helper.resolve(Driver.class.getPackage().getName().replace('.', '/'));
+        try (Stream<Path> files = Files.walk(domain)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                Path target = classes.resolve(helper.relativize(file).toString());
+                Files.createDirectories(target.getParent());
+                Files.copy(file, target);
+            }
+        }
+        List<WeakReference<Class>> loaded = new ArrayList<>();
+        LinkMaker linkMaker = new LinkMaker() {
+            @Override
+            public Optional<Link> getClassLink(Class aClass) {
+                loaded.add(new WeakReference<>(aClass));
+                return Optional.empty();
+            }
+        };
+
+        // when
+        String diagram = new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored", "Machine")
+                .<ClassDiagramBuilder>withLinkMaker(linkMaker).withClasspath(classes)
+                .addPackage(Vehicule.class.getPackage().getName()).build();
+
+        // then
+        String expected = new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored", "Machine")
+                .addPackage(Vehicule.class.getPackage()).build();
+        assertThat(diagram).isEqualTo(expected);
+        assertThat(loaded).isNotEmpty().allSatisfy(reference -> assertThat(reference.get())
+                .isNotNull().isNotEqualTo(Vehicule.class).isNotEqualTo(Car.class));
+        // nothing retains the classes of the closed scope
+        for (int i = 0; i < 20 && loaded.stream().anyMatch(reference -> reference.get() != null); i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertThat(loaded).allSatisfy(reference -> assertThat(reference.get()).isNull());
+    }
+
+    @Test
+    void buildShouldGenerateSameDiagramInParallel() throws Exception {
+        String expected = domainDiagram();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            String diagram = newDomainBuilder().<ClassDiagramBuilder>withExecutor(executor).build();
+
+            assertThat(diagram).isEqualTo(expected);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void buildTwiceShouldGenerateSameDiagram() throws Exception {
+        String expected = domainDiagram();
+
+        ClassDiagramBuilder builder = newDomainBuilder();
+
+        assertThat(builder.build()).isEqualTo(expected);
+        assertThat(builder.build()).isEqualTo(expected);
+    }
+
+    @Test
+    void settingsChangedAfterBuildShouldApplyToNextBuild() {
+        // given
+        ClassDiagramBuilder builder = new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored")
+                .addClasses(Car.class);
+        assertThat(builder.build()).contains("brand : String");
+
+        // when
+        String excluded = builder.<ClassDiagramBuilder>excludes(".*\\.brand").build();
+        String filtered = builder.<ClassDiagramBuilder>addFieldPredicate(a -> !a.getName().equals("model")).build();
+        String mapped = builder.withNamesMapper(new NamesMapper() {
+            @Override
+            public String getClassName(Class aClass) {
+                return "My" + aClass.getSimpleName();
+            }
+        }).build();
+
+        // then
+        assertThat(excluded).doesNotContain("brand").isEqualTo(new ClassDiagramBuilder()
+                .<ClassDiagramBuilder>excludes(".*\\.ignored", ".*\\.brand").addClasses(Car.class).build());
+        assertThat(filtered).doesNotContain("brand").doesNotContain("model : String");
+        assertThat(mapped).contains("class \"MyCar\"");
+    }
+
+    @Test
+    void engineShouldRenderSpecConcurrently() throws Exception {
+        String expected = domainDiagram();
+
+        // given
+        DiagramSpec spec = newDomainBuilder().toSpec();
+        DiagramEngine engine = new DiagramEngine();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // when
+            List<Future<String>> diagrams = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                diagrams.add(executor.submit(() -> engine.render(spec)));
+            }
+
+            // then
+            for (Future<String> diagram : diagrams) {
+                assertThat(diagram.get()).isEqualTo(expected);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void specShouldKeepMappersOverriddenBySubclass() {
+        // given
+        ClassDiagramBuilder builder = new ClassDiagramBuilder() {
+            @Override
+            public String getClassName(Class aClass) {
+                return "My" + aClass.getSimpleName();
+            }
+
+            @Override
+            public Optional<Link> getFieldLink(Field field) {
+                Link link = new Link();
+                link.setUrl("https://link.com/" + field.getName());
+                return Optional.of(link);
+            }
+        }.<ClassDiagramBuilder>excludes(".*\\.ignored").addClasses(Car.class, Wheel.class);
+        String direct = builder.build();
+
+        // when
+        String viaSpec = new DiagramEngine().render(builder.toSpec());
+
+        // then
+        assertThat(direct).contains("class \"MyCar\"").contains("https://link.com/brand");
+        assertThat(viaSpec).isEqualTo(direct);
+    }
+
+    @Test
+    void buildShouldReportPhaseMetrics() {
+        List<PhaseMetrics> phases = new ArrayList<>();
+        List<PhaseMetrics> completed = new ArrayList<>();
+
+        // when
+        String diagram = newDomainBuilder().<ClassDiagramBuilder>withBuildListener(new BuildListener() {
+            @Override
+            public void phaseCompleted(PhaseMetrics metrics) {
+                phases.add(metrics);
+            }
+
+            @Override
+            public void buildCompleted(List<PhaseMetrics> metrics) {
+                completed.addAll(metrics);
+            }
+        }).build();
+
+        // then
+        assertThat(completed).isEqualTo(phases);
+        assertThat(phases).extracting(PhaseMetrics::getPhase).containsExactly(BuildPhase.values());
+        assertThat(phases).extracting(PhaseMetrics::getDiagram).containsOnly("Vehicule +5 classes, "
+                + Vehicule.class.getPackage().getName());
+
+        PhaseMetrics read = phases.get(0);
+        assertThat(read.getScannedClasses()).isEqualTo(6);
+        assertThat(read.getCacheMisses()).isEqualTo(6);
+        assertThat(read.getReadMembers()).isPositive();
+
+        PhaseMetrics detect = phases.get(1);
+        assertThat(detect.getCreatedAssociations()).isEqualTo(6);
+        assertThat(detect.getMergedAssociations()).isEqualTo(7);
+
+        PhaseMetrics packages = phases.get(2);
+        assertThat(packages.getScannedClasses()).isPositive();
+        assertThat(packages.getCacheHits()).isPositive();
+
+        assertThat(phases).allMatch(metrics -> !metrics.getDuration().isNegative());
+        assertThat(phases.stream().mapToLong(PhaseMetrics::getRenderedLength).sum())
+                .isPositive().isLessThan(diagram.length());
+    }
+
+    @Test
+    void buildShouldRecordFlightRecorderEvents() throws Exception {
+        Path dump = Files.createTempFile("build", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("ch.ifocusit.plantuml.BuildPhase");
+            recording.start();
+
+            // when
+            new ClassDiagramBuilder().addClasses(Car.class, Driver.class).setTitle("domain").build();
+
+            recording.stop();
+            recording.dump(dump);
+
+            // then
+            assertThat(RecordingFile.readAllEvents(dump))
+                    .filteredOn(event -> "domain".equals(event.getString("diagram")))
+                    .extracting(event -> event.getString("phase"))
+                    .containsExactly(Stream.of(BuildPhase.values()).map(Enum::name).toArray(String[]::new));
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
     @Test
     public void buildShouldGenerateDiagramFromAggregateMaster() throws Exception {
         String expected = IOUtils.toString(
@@ -188,4 +443,69 @@ class ClassDiagramBuilderTest {
 
         assertThat(diagram).isEqualTo(expected);
     }
+
+    @Test
+    public void writeToShouldStreamSameDiagram() throws IOException {
+        String expected = domainDiagram();
+
+        StringWriter writer = new StringWriter();
+        newDomainBuilder().writeTo(writer);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        newDomainBuilder().writeTo(out, StandardCharsets.UTF_8);
+
+        assertThat(writer.toString()).isEqualTo(expected);
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(expected);
+    }
+
+    @Test
+    public void failedWriteShouldKeepExistingFile(@TempDir Path temp) throws IOException {
+        // given
+        Path file = temp.resolve("diagram.puml");
+        ClassDiagramBuilder.writeDiagramToFile(file, Car.class);
+        String existing = Files.readString(file, Charset.defaultCharset());
+
+        // when
+        assertThatThrownBy(() -> ClassDiagramBuilder.writeDiagramToFile(file, Car.class, null))
+                .isInstanceOf(NullPointerException.class);
+
+        // then
+        assertThat(existing).contains("class \"Car\"");
+        assertThat(Files.readString(file, Charset.defaultCharset())).isEqualTo(existing);
+        assertThat(temp).isDirectoryNotContaining("glob:**.tmp");
+    }
+
+    @Test
+    public void buildAfterFailedSinkShouldNotWriteStaleContent() {
+        // given
+        ClassDiagramBuilder builder = newDomainBuilder();
+        Appendable failing = new Appendable() {
+            private int appended;
+
+            @Override
+            public Appendable append(CharSequence csq) throws IOException {
+                if (++appended > 3) {
+                    throw new IOException("Disk full");
+                }
+                return this;
+            }
+
+            @Override
+            public Appendable append(CharSequence csq, int start, int end) throws IOException {
+                return append(csq.subSequence(start, end));
+            }
+
+            @Override
+            public Appendable append(char c) throws IOException {
+                return append(String.valueOf(c));
+            }
+        };
+        assertThatThrownBy(() -> builder.build(failing)).isInstanceOf(UncheckedIOException.class);
+
+        // when
+        String diagram = builder.build();
+
+        // then
+        assertThat(diagram).startsWith("@startuml").isEqualTo(newDomainBuilder().build());
+    }
 }
@@ -0,0 +1,101 @@
+/*
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import ch.ifocusit.plantuml.classdiagram.model.Link;
+import ch.ifocusit.plantuml.test.helper.domain.Devise;
+import ch.ifocusit.plantuml.test.helper.domain.Driver;
+import ch.ifocusit.plantuml.test.helper.domain.Price;
+import ch.ifocusit.plantuml.test.helper.domain.material.Car;
+import ch.ifocusit.plantuml.test.helper.domain.material.Vehicule;
+import ch.ifocusit.plantuml.test.helper.domain.material.Wheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DiagramBatchTest {
+
+    @Test
+    void batchShouldRenderSameDiagramsAsSeparateBuilds() {
+        // given
+        DiagramSpec base = new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored").toSpec();
+        DiagramSpec cars = base.toBuilder().addPackage(Vehicule.class.getPackage())
+                .addClasses(Car.class, Driver.class, Wheel.class).toSpec();
+        DiagramSpec prices = base.toBuilder().<ClassDiagramBuilder>setHeader("hide fields")
+                .addClasses(Car.class, Price.class, Devise.class).toSpec();
+        DiagramSpec drivers = base.toBuilder().<ClassDiagramBuilder>hideSelfLink().<ClassDiagramBuilder>withDependencies()
+                .addClasses(Driver.class, Car.class).toSpec();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            // when
+            Map<String, String> diagrams = new DiagramBatch(executor).add("cars", cars).add("prices", prices)
+                    .add("drivers", drivers).render();
+
+            // then
+            assertThat(diagrams).containsOnlyKeys("cars", "prices", "drivers");
+            assertThat(diagrams.keySet()).containsExactly("cars", "prices", "drivers");
+            assertThat(diagrams.get("cars")).isEqualTo(cars.toBuilder().build());
+            assertThat(diagrams.get("prices")).isEqualTo(prices.toBuilder().build());
+            assertThat(diagrams.get("drivers")).isEqualTo(drivers.toBuilder().build());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void batchShouldReadEachClassOnce() {
+        // given
+        Map<Class<?>, AtomicInteger> reads = new ConcurrentHashMap<>();
+        DiagramSpec base = new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored")
+                .<ClassDiagramBuilder>withLinkMaker(new LinkMaker() {
+                    @Override
+                    public Optional<Link> getClassLink(Class aClass) {
+                        reads.computeIfAbsent(aClass, c -> new AtomicInteger()).incrementAndGet();
+                        return Optional.empty();
+                    }
+                }).toSpec();
+
+        // when
+        new DiagramBatch().add("cars", base.toBuilder().addClasses(Car.class, Driver.class).toSpec())
+                .add("drivers", base.toBuilder().addClasses(Driver.class, Price.class).toSpec()).render();
+
+        // then
+        assertThat(reads).containsOnlyKeys(Car.class, Driver.class, Price.class);
+        assertThat(reads.values()).allSatisfy(count -> assertThat(count).hasValue(1));
+    }
+
+    @Test
+    void diagramNamesShouldBeUnique() {
+        // given
+        DiagramSpec spec = new ClassDiagramBuilder().addClasses(Car.class).toSpec();
+        DiagramBatch batch = new DiagramBatch().add("cars", spec);
+
+        // then
+        assertThatThrownBy(() -> batch.add("cars", spec)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
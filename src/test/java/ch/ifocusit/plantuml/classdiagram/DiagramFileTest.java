@@ -0,0 +1,122 @@
+/*
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import ch.ifocusit.plantuml.PlantUmlBuilder;
+import ch.ifocusit.plantuml.test.helper.domain.Driver;
+import ch.ifocusit.plantuml.test.helper.domain.material.Car;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiagramFileTest {
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void unchangedDiagramShouldNotBeWritten() throws IOException {
+        // given
+        Path file = temp.resolve("diagrams/car.puml");
+        ClassDiagramBuilder builder = new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored")
+                .addClasses(Car.class);
+        DiagramFile.Result first = builder.writeIfChanged(file);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+        Files.setLastModifiedTime(file.getParent(), FileTime.fromMillis(0));
+
+        // when
+        DiagramFile.Result second = builder.writeIfChanged(file);
+
+        // then
+        assertThat(first.isChanged()).isTrue();
+        assertThat(second.isChanged()).isFalse();
+        assertThat(second.getETag()).isEqualTo(first.getETag()).isEqualTo('"' + first.getContentHash() + '"');
+        assertThat(DiagramFile.contentHash(file)).isEqualTo(first.getContentHash());
+        assertThat(Files.getLastModifiedTime(file)).isEqualTo(FileTime.fromMillis(0));
+        // no temporary file was created
+        assertThat(Files.getLastModifiedTime(file.getParent())).isEqualTo(FileTime.fromMillis(0));
+        assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8))
+                .isEqualTo(builder.build().replace(PlantUmlBuilder.NEWLINE, "\n"));
+        assertThat(temp.resolve("diagrams")).isDirectoryContaining(path -> true)
+                .isDirectoryNotContaining("glob:**.tmp");
+    }
+
+    @Test
+    void changedDiagramShouldBeReplaced() throws IOException {
+        // given
+        Path file = temp.resolve("car.puml");
+        DiagramFile.Result first = new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored")
+                .addClasses(Car.class).writeIfChanged(file);
+
+        // when
+        DiagramFile.Result second = new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored")
+                .addClasses(Car.class, Driver.class).writeIfChanged(file);
+
+        // then
+        assertThat(second.isChanged()).isTrue();
+        assertThat(second.getContentHash()).isNotEqualTo(first.getContentHash());
+        assertThat(DiagramFile.contentHash(file)).isEqualTo(second.getContentHash());
+        assertThat(temp).isDirectoryNotContaining("glob:**.tmp");
+    }
+
+    @Test
+    void diagramStartingLikeExistingFileShouldBeReplaced() throws IOException {
+        // given
+        Path longer = temp.resolve("longer.puml");
+        Path shorter = temp.resolve("shorter.puml");
+        ClassDiagramBuilder builder = new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored")
+                .addClasses(Car.class);
+        String diagram = builder.build().replace(PlantUmlBuilder.NEWLINE, "\n");
+        Files.write(longer, (diagram + "' previous content\n").getBytes(StandardCharsets.UTF_8));
+        Files.write(shorter, diagram.substring(0, diagram.length() / 2).getBytes(StandardCharsets.UTF_8));
+
+        // when
+        DiagramFile.Result longerResult = builder.writeIfChanged(longer);
+        DiagramFile.Result shorterResult = builder.writeIfChanged(shorter);
+
+        // then
+        assertThat(longerResult.isChanged()).isTrue();
+        assertThat(shorterResult.isChanged()).isTrue();
+        assertThat(new String(Files.readAllBytes(longer), StandardCharsets.UTF_8)).isEqualTo(diagram);
+        assertThat(new String(Files.readAllBytes(shorter), StandardCharsets.UTF_8)).isEqualTo(diagram);
+        assertThat(temp).isDirectoryNotContaining("glob:**.tmp");
+    }
+
+    @Test
+    void lineEndingsShouldBeLineFeeds() throws IOException {
+        // given
+        Path file = temp.resolve("car.puml");
+
+        // when
+        new ClassDiagramBuilder().<ClassDiagramBuilder>setHeader("left to right direction\r\nhide empty members\r")
+                .<ClassDiagramBuilder>setTitle("Cars\rand trucks").addClasses(Car.class).writeIfChanged(file);
+
+        // then
+        String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        assertThat(content).doesNotContain("\r").contains("left to right direction\nhide empty members\n")
+                .contains("Cars\nand trucks");
+    }
+}
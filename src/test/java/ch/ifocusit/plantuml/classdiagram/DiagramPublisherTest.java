@@ -0,0 +1,151 @@
+/*
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import ch.ifocusit.plantuml.PlantUmlBuilder;
+import ch.ifocusit.plantuml.test.helper.domain.Devise;
+import ch.ifocusit.plantuml.test.helper.domain.Driver;
+import ch.ifocusit.plantuml.test.helper.domain.Price;
+import ch.ifocusit.plantuml.test.helper.domain.material.Car;
+import ch.ifocusit.plantuml.test.helper.domain.material.Wheel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiagramPublisherTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static DiagramSpec spec() {
+        return new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored")
+                .<ClassDiagramBuilder>setHeader("hide empty members")
+                .addPackage(Car.class.getPackage())
+                .addClasses(Car.class, Driver.class, Price.class, Wheel.class, Devise.class).toSpec();
+    }
+
+    @Test
+    void chunksShouldMakeTheDiagram() throws Exception {
+        // given
+        ChunkSubscriber subscriber = new ChunkSubscriber(1);
+
+        // when
+        new DiagramPublisher(spec(), executor, 2).subscribe(subscriber);
+
+        // then
+        subscriber.done.get(5, TimeUnit.SECONDS);
+        assertThat(String.join("", subscriber.chunks)).isEqualTo(spec().toBuilder().build());
+        assertThat(subscriber.chunks.get(0)).startsWith("@startuml");
+        assertThat(subscriber.chunks).anySatisfy(chunk -> assertThat(chunk).startsWith("class \"Car\""));
+        // associations are published 2 by 2
+        assertThat(subscriber.chunks).contains("\"Car\" --> \"Price\" : price" + PlantUmlBuilder.NEWLINE
+                + "\"Car\" --> \"*\" \"Wheel\" : wheels" + PlantUmlBuilder.NEWLINE);
+    }
+
+    @Test
+    void publisherShouldWaitForDemand() throws Exception {
+        // given
+        ChunkSubscriber subscriber = new ChunkSubscriber(0);
+        new DiagramPublisher(spec(), executor).subscribe(subscriber);
+
+        // when
+        subscriber.subscription.request(2);
+
+        // then
+        assertThat(subscriber.received.tryAcquire(2, 5, TimeUnit.SECONDS)).isTrue();
+        // no third chunk without demand
+        assertThat(subscriber.received.tryAcquire(100, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(subscriber.chunks).hasSize(2);
+        assertThat(subscriber.done).isNotDone();
+        subscriber.subscription.cancel();
+    }
+
+    @Test
+    void invalidRequestShouldFail() throws Exception {
+        // given
+        ChunkSubscriber subscriber = new ChunkSubscriber(0);
+        new DiagramPublisher(spec(), executor).subscribe(subscriber);
+
+        // when
+        subscriber.subscription.request(0);
+
+        // then
+        subscriber.done.handle((result, error) -> error).thenAccept(
+                error -> assertThat(error).isInstanceOf(IllegalArgumentException.class)).get(5, TimeUnit.SECONDS);
+        assertThat(subscriber.chunks).isEmpty();
+    }
+
+    /**
+     * Request <code>batch</code> chunks at subscription then after each received one.
+     */
+    private static final class ChunkSubscriber implements Flow.Subscriber<String> {
+        private final int batch;
+        private final List<String> chunks = new CopyOnWriteArrayList<>();
+        // one permit per received chunk
+        private final Semaphore received = new Semaphore(0);
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private volatile Flow.Subscription subscription;
+
+        private ChunkSubscriber(int batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (batch > 0) {
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onNext(String chunk) {
+            chunks.add(chunk);
+            received.release();
+            if (batch > 0) {
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+}
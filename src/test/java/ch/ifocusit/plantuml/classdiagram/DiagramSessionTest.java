@@ -0,0 +1,156 @@
+/*
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import ch.ifocusit.plantuml.PlantUmlBuilder;
+import ch.ifocusit.plantuml.test.helper.domain.Devise;
+import ch.ifocusit.plantuml.test.helper.domain.Driver;
+import ch.ifocusit.plantuml.test.helper.domain.Price;
+import ch.ifocusit.plantuml.test.helper.domain.material.Car;
+import ch.ifocusit.plantuml.test.helper.domain.material.Vehicule;
+import ch.ifocusit.plantuml.test.helper.domain.material.Wheel;
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiagramSessionTest {
+
+    private static ClassDiagramBuilder newBuilder() {
+        return new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored", "Machine")
+                .<ClassDiagramBuilder>setHeader("hide empty members")
+                .addPackage(Vehicule.class.getPackage());
+    }
+
+    @Test
+    void sessionShouldRenderSameDiagramAsBuilder() {
+        // given
+        DiagramSession session = new DiagramSession(newBuilder().addClasses(Car.class, Driver.class).toSpec());
+
+        // then
+        assertThat(session.render()).isEqualTo(newBuilder().addClasses(Car.class, Driver.class).build());
+        assertThat(session.getClasses()).containsExactly(Car.class, Driver.class);
+    }
+
+    @Test
+    void addedClassesShouldOnlyRenderTheirDefinition() {
+        // given
+        DiagramSession session = new DiagramSession(newBuilder().addClasses(Car.class, Driver.class).toSpec());
+
+        // when
+        DiagramDelta delta = session.addClasses(Wheel.class, Price.class);
+
+        // then
+        assertThat(delta.getRemovedTypes()).isEmpty();
+        assertThat(delta.getUpdatedTypes()).containsOnlyKeys("Price", "Wheel");
+        assertThat(delta.getUpdatedTypes().get("Wheel")).startsWith("class \"Wheel\"");
+        assertThat(delta.getAddedAssociations()).contains("\"Car\" --> \"*\" \"Wheel\" : wheels" + PlantUmlBuilder.NEWLINE);
+        assertThat(session.render())
+                .isEqualTo(newBuilder().addClasses(Car.class, Driver.class, Wheel.class, Price.class).build());
+    }
+
+    @Test
+    void removedClassesShouldRemoveTheirAssociations() {
+        // given
+        DiagramSession session = new DiagramSession(newBuilder()
+                .addClasses(Vehicule.class, Car.class, Driver.class, Price.class, Wheel.class, Devise.class).toSpec());
+
+        // when
+        DiagramDelta delta = session.removeClasses(Wheel.class, Devise.class);
+
+        // then
+        assertThat(delta.getRemovedTypes()).containsExactly("Devise", "Wheel");
+        assertThat(delta.getUpdatedTypes()).isEmpty();
+        assertThat(delta.getRemovedAssociations()).isNotEmpty()
+                .allSatisfy(line -> assertThat(line).containsAnyOf("\"Wheel\"", "\"Devise\""));
+        assertThat(delta.getAddedAssociations()).isEmpty();
+        assertThat(session.render())
+                .isEqualTo(newBuilder().addClasses(Vehicule.class, Car.class, Driver.class, Price.class).build());
+    }
+
+    @Test
+    void replacedClassWithSameDefinitionShouldNotChangeDiagram() throws Exception {
+        // given
+        DiagramSession session = new DiagramSession(newBuilder().addClasses(Wheel.class).toSpec());
+        String before = session.render();
+        URL classes = Wheel.class.getProtectionDomain().getCodeSource().getLocation();
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { classes }, null)) {
+            Class<?> reloaded = loader.loadClass(Wheel.class.getName());
+
+            // when
+            DiagramDelta delta = session.replaceClass(Wheel.class, reloaded);
+
+            // then
+            assertThat(reloaded).isNotEqualTo(Wheel.class);
+            assertThat(delta.isEmpty()).isTrue();
+            assertThat(session.getClasses()).containsExactly(reloaded);
+            assertThat(session.render()).isEqualTo(before);
+        }
+    }
+
+    @Test
+    void replacedClassShouldKeepLinksTargetingIt() throws Exception {
+        // given
+        DiagramSession session = new DiagramSession(newBuilder().addClasses(Car.class, Wheel.class).toSpec());
+        String before = session.render();
+        URL classes = Wheel.class.getProtectionDomain().getCodeSource().getLocation();
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { classes }, null)) {
+            Class<?> reloaded = loader.loadClass(Wheel.class.getName());
+
+            // when
+            DiagramDelta delta = session.replaceClass(Wheel.class, reloaded);
+
+            // then
+            assertThat(delta.isEmpty()).isTrue();
+            assertThat(session.getClasses()).containsExactly(Car.class, reloaded);
+            assertThat(before).contains("\"Car\" --> \"*\" \"Wheel\" : wheels");
+            assertThat(session.render()).isEqualTo(before);
+        }
+    }
+
+    @Test
+    void updateShouldOnlyRegisterLinksOfChangedClasses() {
+        // given
+        List<Class> namedClasses = new CopyOnWriteArrayList<>();
+        DiagramSession session = new DiagramSession(newBuilder().withNamesMapper(new NamesMapper() {
+            @Override
+            public String getClassName(Class aClass) {
+                namedClasses.add(aClass);
+                return NamesMapper.super.getClassName(aClass);
+            }
+        }).addClasses(Car.class, Driver.class, Wheel.class).toSpec());
+        namedClasses.clear();
+
+        // when
+        DiagramDelta delta = session.addClasses(Price.class);
+
+        // then
+        assertThat(delta.getAddedAssociations())
+                .containsExactly("\"Car\" --> \"Price\" : price" + PlantUmlBuilder.NEWLINE);
+        assertThat(namedClasses).doesNotContain(Driver.class, Wheel.class);
+        assertThat(session.render())
+                .isEqualTo(newBuilder().addClasses(Car.class, Driver.class, Wheel.class, Price.class).build());
+    }
+}
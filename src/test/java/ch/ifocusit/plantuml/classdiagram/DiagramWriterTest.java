@@ -0,0 +1,130 @@
+/*
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import ch.ifocusit.plantuml.classdiagram.model.Link;
+import ch.ifocusit.plantuml.test.helper.domain.Driver;
+import ch.ifocusit.plantuml.test.helper.domain.Price;
+import ch.ifocusit.plantuml.test.helper.domain.material.Car;
+import ch.ifocusit.plantuml.test.helper.domain.material.Wheel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class DiagramWriterTest {
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void writerShouldWriteAllDiagrams() throws IOException {
+        // given
+        DiagramWriter writer = new DiagramWriter(2);
+        Class<?>[] classes = { Car.class, Driver.class, Price.class, Wheel.class };
+        for (Class<?> aClass : classes) {
+            writer.add(temp.resolve(aClass.getSimpleName() + ".puml"), aClass);
+        }
+
+        // when
+        List<DiagramWriter.Outcome> first = writer.write();
+        List<DiagramWriter.Outcome> second = writer.write();
+
+        // then
+        assertThat(first).extracting(DiagramWriter.Outcome::getFile).containsExactly(temp.resolve("Car.puml"),
+                temp.resolve("Driver.puml"), temp.resolve("Price.puml"), temp.resolve("Wheel.puml"));
+        assertThat(first).allSatisfy(outcome -> assertThat(outcome.getResult()).hasValueSatisfying(
+                result -> assertThat(result.isChanged()).isTrue()));
+        assertThat(second).allSatisfy(outcome -> assertThat(outcome.getResult()).hasValueSatisfying(
+                result -> assertThat(result.isChanged()).isFalse()));
+        String driver = new String(Files.readAllBytes(temp.resolve("Driver.puml")), StandardCharsets.UTF_8);
+        assertThat(driver).contains("class \"Driver\"").doesNotContain("\"Car\" {");
+    }
+
+    @Test
+    void failingJobShouldNotStopOthers() throws IOException {
+        // given
+        Path notADirectory = Files.createFile(temp.resolve("file"));
+
+        // when
+        List<DiagramWriter.Outcome> outcomes = new DiagramWriter()
+                .add(notADirectory.resolve("car.puml"), Car.class)
+                .add(temp.resolve("driver.puml"), Driver.class).write();
+
+        // then
+        assertThat(outcomes.get(0).isFailed()).isTrue();
+        assertThat(outcomes.get(0).getError()).containsInstanceOf(IOException.class);
+        assertThat(outcomes.get(0).getResult()).isEmpty();
+        assertThat(outcomes.get(1).isFailed()).isFalse();
+        assertThat(temp.resolve("driver.puml")).exists();
+    }
+
+    @Test
+    void jobThrowingErrorShouldNotStopOthers() {
+        // given
+        LinkMaker linkMaker = new LinkMaker() {
+            @Override
+            public Optional<Link> getClassLink(Class aClass) {
+                throw new NoClassDefFoundError("missing/Dependency");
+            }
+        };
+        DiagramSpec failing = new ClassDiagramBuilder().addClasses(Car.class)
+                .<ClassDiagramBuilder>withLinkMaker(linkMaker).toSpec();
+
+        // when
+        List<DiagramWriter.Outcome> outcomes = new DiagramWriter()
+                .add(temp.resolve("car.puml"), failing)
+                .add(temp.resolve("driver.puml"), Driver.class).write();
+
+        // then
+        assertThat(outcomes.get(0).getError()).containsInstanceOf(NoClassDefFoundError.class);
+        assertThat(outcomes.get(0).getResult()).isEmpty();
+        assertThat(outcomes.get(1).isFailed()).isFalse();
+        assertThat(temp.resolve("car.puml")).doesNotExist();
+        assertThat(temp.resolve("driver.puml")).exists();
+    }
+
+    @Test
+    void virtualMachineErrorShouldStopWrite() {
+        // given
+        LinkMaker linkMaker = new LinkMaker() {
+            @Override
+            public Optional<Link> getClassLink(Class aClass) {
+                throw new OutOfMemoryError("Java heap space");
+            }
+        };
+        DiagramSpec failing = new ClassDiagramBuilder().addClasses(Car.class)
+                .<ClassDiagramBuilder>withLinkMaker(linkMaker).toSpec();
+        DiagramWriter writer = new DiagramWriter().add(temp.resolve("car.puml"), failing);
+
+        // when
+        Throwable thrown = catchThrowable(writer::write);
+
+        // then
+        assertThat(thrown).isInstanceOf(OutOfMemoryError.class);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ch.ifocusit.plantuml.classdiagram;
+
+import ch.ifocusit.plantuml.test.helper.domain.Driver;
+import ch.ifocusit.plantuml.test.helper.domain.Price;
+import ch.ifocusit.plantuml.test.helper.domain.material.Car;
+import ch.ifocusit.plantuml.test.helper.domain.material.Vehicule;
+import ch.ifocusit.plantuml.test.helper.domain.material.Wheel;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FragmentCacheTest {
+
+    @Test
+    void diagramsOfSameSpecShouldShareRenderedClasses() {
+        // given
+        FragmentCache cache = new FragmentCache(1_000_000);
+        DiagramSpec spec = new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored")
+                .<ClassDiagramBuilder>withFragmentCache(cache).addClasses(Car.class, Driver.class).toSpec();
+
+        // when
+        String first = spec.toBuilder().build();
+        String second = spec.toBuilder().addClasses(Wheel.class).build();
+
+        // then
+        assertThat(first).isEqualTo(new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored")
+                .addClasses(Car.class, Driver.class).build());
+        assertThat(second).isEqualTo(new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored")
+                .addClasses(Car.class, Driver.class, Wheel.class).build());
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.stats().hitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void defaultBuildersShouldShareRenderedClasses() {
+        // given
+        FragmentCache cache = new FragmentCache(1_000_000);
+
+        // when
+        new ClassDiagramBuilder().<ClassDiagramBuilder>withFragmentCache(cache).addClasses(Vehicule.class).build();
+        new ClassDiagramBuilder().<ClassDiagramBuilder>withFragmentCache(cache).addClasses(Vehicule.class).build();
+
+        // then
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void otherSettingsShouldNotReuseRenderedClasses() {
+        // given
+        FragmentCache cache = new FragmentCache(1_000_000);
+        new ClassDiagramBuilder().<ClassDiagramBuilder>withFragmentCache(cache).addClasses(Price.class).build();
+
+        // when
+        String mapped = new ClassDiagramBuilder().<ClassDiagramBuilder>withFragmentCache(cache)
+                .withNamesMapper(new NamesMapper() {
+                    @Override
+                    public String getFieldName(Field field) {
+                        return "attr." + field.getName();
+                    }
+                }).addClasses(Price.class).build();
+        String excluded = new ClassDiagramBuilder().<ClassDiagramBuilder>withFragmentCache(cache)
+                .<ClassDiagramBuilder>excludes(".*\\.amount").addClasses(Price.class).build();
+
+        // then
+        assertThat(cache.stats().hitCount()).isZero();
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(mapped).contains("attr.amount");
+        assertThat(excluded).doesNotContain("amount");
+    }
+
+    @Test
+    void cacheShouldBeBoundedByRenderedLength() {
+        // given
+        FragmentCache cache = new FragmentCache(100);
+
+        // when
+        new ClassDiagramBuilder().<ClassDiagramBuilder>withFragmentCache(cache)
+                .addClasses(Car.class, Driver.class, Price.class, Wheel.class).build();
+
+        // then
+        assertThat(cache.size()).isLessThan(4);
+        assertThat(cache.stats().evictionCount()).isPositive();
+    }
+}
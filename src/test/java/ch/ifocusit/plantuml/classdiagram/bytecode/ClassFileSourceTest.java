@@ -0,0 +1,80 @@
+/*
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.bytecode;
+
+import ch.ifocusit.plantuml.PlantUmlBuilder;
+import ch.ifocusit.plantuml.classdiagram.ClassDiagramBuilder;
+import ch.ifocusit.plantuml.classdiagram.model.clazz.ClassFileClazz;
+import ch.ifocusit.plantuml.test.helper.domain.Devise;
+import ch.ifocusit.plantuml.test.helper.domain.Driver;
+import ch.ifocusit.plantuml.test.helper.domain.Price;
+import ch.ifocusit.plantuml.test.helper.domain.material.Car;
+import ch.ifocusit.plantuml.test.helper.domain.material.Vehicule;
+import ch.ifocusit.plantuml.test.helper.domain.material.Wheel;
+import ch.ifocusit.plantuml.test.helper.service.AccessDataService;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClassFileSourceTest {
+
+    @ParameterizedTest
+    @ValueSource(classes = { Car.class, Driver.class, Price.class, Devise.class, Vehicule.class,
+            Wheel.class, AccessDataService.class })
+    void readShouldRenderLikeReflection(Class<?> aClass) throws IOException {
+        // given
+        ClassFileSource source = new ClassFileSource(getClass().getClassLoader())
+                .excludes(".*\\.ignored");
+        // when
+        ClassFileClazz clazz = source.read(classFile(aClass));
+        // then
+        ClassDiagramBuilder reflection = new ClassDiagramBuilder().excludes(".*\\.ignored");
+        String expected = new PlantUmlBuilder().addType(reflection.createJavaClass(aClass)).build();
+        assertThat(new PlantUmlBuilder().addType(clazz).build()).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(classes = { Car.class })
+    void readShouldKeepHierarchyAndConcernedTypes(Class<?> aClass) throws IOException {
+        // when
+        ClassFileClazz clazz = new ClassFileSource(getClass().getClassLoader())
+                .read(classFile(aClass));
+        // then
+        assertThat(clazz.getClassName()).isEqualTo(Car.class.getName());
+        assertThat(clazz.getSuperClassName()).contains(Object.class.getName());
+        assertThat(clazz.getInterfaceNames()).containsExactly(Vehicule.class.getName());
+        assertThat(clazz.getAttributes()).filteredOn(attribute -> attribute.getName().equals("wheels"))
+                .singleElement()
+                .satisfies(attribute -> assertThat(attribute.getConcernedTypes())
+                        .containsExactlyInAnyOrder("java.util.Collection", Wheel.class.getName()));
+    }
+
+    private static ByteBuffer classFile(Class<?> aClass) throws IOException {
+        String resource = "/" + aClass.getName().replace('.', '/') + ".class";
+        try (InputStream in = Objects.requireNonNull(aClass.getResourceAsStream(resource))) {
+            return ByteBuffer.wrap(in.readAllBytes());
+        }
+    }
+}
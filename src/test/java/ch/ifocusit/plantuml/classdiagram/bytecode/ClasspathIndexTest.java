@@ -0,0 +1,149 @@
+/*
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.bytecode;
+
+import ch.ifocusit.plantuml.test.helper.domain.material.Car;
+import ch.ifocusit.plantuml.test.helper.domain.material.Machine;
+import ch.ifocusit.plantuml.test.helper.domain.material.Vehicule;
+import com.google.common.reflect.ClassPath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClasspathIndexTest {
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void indexShouldListSameClassesAsClassPath() throws IOException {
+        ClassLoader classLoader = getClass().getClassLoader();
+        String packageName = Car.class.getPackage().getName();
+
+        // when
+        ClasspathIndex index = ClasspathIndex.open(temp.resolve("classpath.idx"), classLoader);
+
+        // then
+        List<String> expected = ClassPath.from(classLoader).getTopLevelClasses(packageName).stream()
+                .map(ClassPath.ClassInfo::getName).sorted().collect(Collectors.toList());
+        assertThat(index.getTopLevelClasses(packageName)).extracting(IndexedClass::getName)
+                .containsExactlyInAnyOrderElementsOf(expected);
+        IndexedClass car = index.getTopLevelClasses(packageName).stream()
+                .filter(clazz -> clazz.getName().equals(Car.class.getName())).findFirst().orElseThrow();
+        assertThat(car.getSuperClassName()).contains(Object.class.getName());
+        assertThat(car.getInterfaceNames()).containsExactly(Vehicule.class.getName());
+        assertThat(car.getAnnotationNames()).containsExactly(Machine.class.getName());
+    }
+
+    @Test
+    void indexShouldOnlyReadChangedClassFiles() throws IOException {
+        // given
+        Path classes = temp.resolve("classes");
+        copyClassFile(Car.class, classes);
+        copyClassFile(Vehicule.class, classes);
+        Path file = temp.resolve("classpath.idx");
+        List<Path> classpath = List.of(classes);
+
+        // when
+        ClasspathIndex created = ClasspathIndex.open(file, classpath);
+        ClasspathIndex reopened = ClasspathIndex.open(file, classpath);
+        Files.setLastModifiedTime(classes.resolve(resourceName(Car.class)), FileTime.fromMillis(0));
+        ClasspathIndex touched = ClasspathIndex.open(file, classpath);
+        Files.delete(classes.resolve(resourceName(Vehicule.class)));
+        ClasspathIndex deleted = ClasspathIndex.open(file, classpath);
+
+        // then
+        assertThat(created.isUpdated()).isTrue();
+        assertThat(reopened.isUpdated()).isFalse();
+        assertThat(reopened.getClasses()).extracting(IndexedClass::getName)
+                .containsExactly(Car.class.getName(), Vehicule.class.getName());
+        assertThat(reopened.getClasses().get(0).getInterfaceNames()).containsExactly(Vehicule.class.getName());
+        assertThat(touched.isUpdated()).isTrue();
+        assertThat(deleted.isUpdated()).isTrue();
+        assertThat(deleted.getClasses()).extracting(IndexedClass::getName).containsExactly(Car.class.getName());
+    }
+
+    @Test
+    void corruptedIndexShouldBeRebuilt() throws IOException {
+        // given
+        Path classes = temp.resolve("classes");
+        copyClassFile(Car.class, classes);
+        Path file = temp.resolve("classpath.idx");
+        Files.write(file, new byte[] { 1, 2, 3 });
+
+        // when
+        ClasspathIndex index = ClasspathIndex.open(file, List.of(classes));
+
+        // then
+        assertThat(index.isUpdated()).isTrue();
+        assertThat(index.getClasses()).extracting(IndexedClass::getName).containsExactly(Car.class.getName());
+    }
+
+    @Test
+    void classpathShouldFollowManifestClassPath() throws IOException {
+        // given
+        Path classes = temp.resolve("lib/classes");
+        copyClassFile(Car.class, classes);
+        Path jar = temp.resolve("lib/app.jar");
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, "classes/ missing.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar), manifest)) {
+            out.finish();
+        }
+
+        // when
+        List<Path> classpath;
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] { jar.toUri().toURL() }, null)) {
+            classpath = ClasspathIndex.classpathOf(classLoader);
+        }
+        ClasspathIndex index = ClasspathIndex.open(temp.resolve("classpath.idx"), classpath);
+
+        // then
+        assertThat(classpath).containsExactly(jar, classes, temp.resolve("lib/missing.jar"));
+        assertThat(index.getClasses()).extracting(IndexedClass::getName).containsExactly(Car.class.getName());
+    }
+
+    private static String resourceName(Class<?> aClass) {
+        return aClass.getName().replace('.', '/') + ".class";
+    }
+
+    private void copyClassFile(Class<?> aClass, Path directory) throws IOException {
+        Path target = directory.resolve(resourceName(aClass));
+        Files.createDirectories(target.getParent());
+        try (InputStream in = Objects.requireNonNull(getClass().getClassLoader().getResourceAsStream(resourceName(aClass)))) {
+            Files.copy(in, target);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.bytecode;
+
+import ch.ifocusit.plantuml.test.helper.domain.Driver;
+import ch.ifocusit.plantuml.test.helper.domain.material.Car;
+import ch.ifocusit.plantuml.test.helper.domain.material.Wheel;
+import ch.ifocusit.plantuml.test.helper.domain.material.Vehicule;
+import com.google.common.reflect.ClassPath;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClasspathScannerTest {
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void scannerShouldReadStoredAndDeflatedJarEntries() throws IOException {
+        // given
+        Path jar = temp.resolve("domain.jar");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            addEntry(out, Car.class, ZipEntry.STORED);
+            addEntry(out, Driver.class, ZipEntry.DEFLATED);
+            addEntry(out, Vehicule.class, ZipEntry.DEFLATED);
+            out.putNextEntry(new ZipEntry("META-INF/versions/11/" + resourceName(Wheel.class)));
+            out.write(classFile(Wheel.class));
+            out.closeEntry();
+        }
+
+        // when
+        List<ClassFileEntry> entries;
+        try (ClasspathScanner scanner = ClasspathScanner.open(List.of(jar))) {
+            entries = scanner.readTopLevelClasses(Car.class.getPackage().getName());
+        }
+
+        // then
+        assertThat(entries).extracting(ClassFileEntry::getClassName)
+                .containsExactly(Car.class.getName(), Vehicule.class.getName());
+        assertThat(entries).extracting(ClassFileEntry::getSource).containsOnly(jar);
+        assertThat(bytes(entries.get(0))).isEqualTo(classFile(Car.class));
+        assertThat(bytes(entries.get(1))).isEqualTo(classFile(Vehicule.class));
+    }
+
+    @Test
+    void scannerShouldReadSameClassesAsClassPath() throws Exception {
+        ClassLoader classLoader = getClass().getClassLoader();
+        String packageName = Car.class.getPackage().getName();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (ClasspathScanner scanner = ClasspathScanner.open(ClasspathIndex.classpathOf(classLoader), executor)) {
+            // when
+            List<ClassFileEntry> entries = scanner.readTopLevelClasses(packageName);
+
+            // then
+            List<String> expected = ClassPath.from(classLoader).getTopLevelClasses(packageName).stream()
+                    .map(ClassPath.ClassInfo::getName).collect(Collectors.toList());
+            assertThat(entries).extracting(ClassFileEntry::getClassName)
+                    .containsExactlyInAnyOrderElementsOf(expected);
+            for (ClassFileEntry entry : entries) {
+                assertThat(bytes(entry)).isEqualTo(classFile(classLoader.loadClass(entry.getClassName())));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void firstClassOfClasspathShouldWin() throws IOException {
+        // given
+        Path first = temp.resolve("first");
+        Path second = temp.resolve("second.jar");
+        Files.createDirectories(first.resolve(resourceName(Car.class)).getParent());
+        Files.write(first.resolve(resourceName(Car.class)), classFile(Car.class));
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(second))) {
+            addEntry(out, Car.class, ZipEntry.DEFLATED);
+        }
+
+        // when
+        try (ClasspathScanner scanner = ClasspathScanner.open(List.of(first, second, temp.resolve("missing.jar")))) {
+            // then
+            assertThat(scanner.getClassNames()).containsExactly(Car.class.getName());
+            assertThat(scanner.read(className -> true)).extracting(ClassFileEntry::getSource)
+                    .containsExactly(first);
+        }
+    }
+
+    @Test
+    void closedScannerShouldNotBeRead() throws IOException {
+        // given
+        Path jar = temp.resolve("domain.jar");
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            addEntry(out, Car.class, ZipEntry.STORED);
+        }
+        ClasspathScanner scanner = ClasspathScanner.open(List.of(jar));
+        List<ClassFileEntry> entries = scanner.read(className -> true);
+
+        // when
+        scanner.close();
+
+        // then
+        assertThatThrownBy(() -> scanner.read(className -> true)).isInstanceOf(IllegalStateException.class);
+        assertThat(bytes(entries.get(0))).isEqualTo(classFile(Car.class));
+        Files.delete(jar);
+    }
+
+    private static byte[] bytes(ClassFileEntry entry) {
+        ByteBuffer content = entry.getContent();
+        byte[] bytes = new byte[content.remaining()];
+        content.get(bytes);
+        return bytes;
+    }
+
+    private static String resourceName(Class<?> aClass) {
+        return aClass.getName().replace('.', '/') + ".class";
+    }
+
+    private byte[] classFile(Class<?> aClass) throws IOException {
+        try (InputStream in = Objects.requireNonNull(getClass().getClassLoader().getResourceAsStream(resourceName(aClass)))) {
+            return in.readAllBytes();
+        }
+    }
+
+    private void addEntry(ZipOutputStream out, Class<?> aClass, int method) throws IOException {
+        byte[] content = classFile(aClass);
+        ZipEntry entry = new ZipEntry(resourceName(aClass));
+        entry.setMethod(method);
+        if (method == ZipEntry.STORED) {
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            entry.setSize(content.length);
+            entry.setCrc(crc.getValue());
+        }
+        out.putNextEntry(entry);
+        out.write(content);
+        out.closeEntry();
+    }
+}
@@ -1,6 +1,7 @@
 package ch.ifocusit.plantuml.classdiagram.model;
 
 import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
@@ -54,4 +55,19 @@ class LinkTest {
         // then
         assertThat(actual).isEqualTo(expected == null ? StringUtils.EMPTY : expected);
     }
-}
\ No newline at end of file
+
+    @Test
+    void appendTo_member() {
+        // given
+        Link link = new Link();
+        link.setUrl(URL);
+        link.setLabel(LABEL);
+        link.setTooltip(TOOLTIP);
+        StringBuilder out = new StringBuilder("wheels : Wheel ");
+        // when
+        StringBuilder actual = link.appendTo(out, Link.LinkContext.FIELD);
+        // then the link is written in the given builder, after its content
+        assertThat(actual).isSameAs(out)
+                .hasToString("wheels : Wheel [[[" + URL + "{" + TOOLTIP + "} " + LABEL + "]]]");
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.snapshot;
+
+import ch.ifocusit.plantuml.classdiagram.ClassDiagramBuilder;
+import ch.ifocusit.plantuml.classdiagram.LinkMaker;
+import ch.ifocusit.plantuml.classdiagram.model.Link;
+import ch.ifocusit.plantuml.test.helper.domain.Devise;
+import ch.ifocusit.plantuml.test.helper.domain.Driver;
+import ch.ifocusit.plantuml.test.helper.domain.Price;
+import ch.ifocusit.plantuml.test.helper.domain.material.Car;
+import ch.ifocusit.plantuml.test.helper.domain.material.Vehicule;
+import ch.ifocusit.plantuml.test.helper.domain.material.Wheel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DiagramSnapshotTest {
+
+    @Test
+    void snapshotShouldRenderSameDiagramAsBuilder() {
+        // given
+        ClassDiagramBuilder builder = new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored", "Machine")
+                .addPackage(Vehicule.class.getPackage()).addClasses(Vehicule.class,
+                        Car.class, Driver.class, Price.class, Wheel.class, Devise.class)
+                .<ClassDiagramBuilder>withLinkMaker(new LinkMaker() {
+                    @Override
+                    public Optional<Link> getFieldLink(Field field) {
+                        Link link = new Link();
+                        link.setUrl("https://link.com/" + field.getName());
+                        link.setTooltip("Show " + field.getName());
+                        return Optional.of(link);
+                    }
+                })
+                .<ClassDiagramBuilder>setHeader("hide empty members").setTitle("Vehicules");
+
+        // when
+        DiagramSnapshot snapshot = builder.snapshot();
+
+        // then
+        assertThat(snapshot.render()).isEqualTo(builder.build());
+        assertThat(snapshot.getPackageNames()).containsExactly(Vehicule.class.getPackage().getName());
+        assertThat(snapshot.getTypes()).extracting(SnapshotClazz::getName)
+                .containsExactly("Car", "Devise", "Driver", "Price", "Vehicule", "Wheel");
+        for (int id = 0; id < snapshot.getClasses().size(); id++) {
+            assertThat(snapshot.getClasses().get(id).getId()).isEqualTo(id);
+        }
+        assertThat(snapshot.getAssociationCount()).isPositive();
+    }
+
+    @Test
+    void snapshotShouldShareStrings() {
+        // when
+        DiagramSnapshot snapshot = new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored")
+                .addPackage(Vehicule.class.getPackage()).addClasses(Car.class).snapshot();
+
+        // then
+        SnapshotClazz declared = snapshot.getPackageClasses(0).stream()
+                .filter(clazz -> clazz.getName().equals("Car")).findFirst().orElseThrow();
+        SnapshotClazz car = snapshot.getTypes().get(0);
+        assertThat(declared.getId()).isNotEqualTo(car.getId());
+        assertThat(declared.getName()).isSameAs(car.getName());
+        assertThat(declared.getAttributes()).isEmpty();
+        SnapshotAttribute brand = attribute(car, "brand");
+        SnapshotAttribute model = attribute(car, "model");
+        assertThat(brand.getTypeName()).contains("String");
+        assertThat(brand.getTypeName().get()).isSameAs(model.getTypeName().get());
+    }
+
+    @Test
+    void snapshotShouldNotRetainScannedClasses(@TempDir Path temp) throws Exception {
+        // given
+        Path classes = temp.resolve("classes");
+        Path helper = Path.of(Vehicule.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        Path domain = helper.resolve(Driver.class.getPackage().getName().replace('.', '/'));
+        try (Stream<Path> files = Files.walk(domain)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                Path target = classes.resolve(helper.relativize(file).toString());
+                Files.createDirectories(target.getParent());
+                Files.copy(file, target);
+            }
+        }
+        List<WeakReference<Class>> loaded = new ArrayList<>();
+
+        // when
+        DiagramSnapshot snapshot = new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored")
+                .<ClassDiagramBuilder>withLinkMaker(new LinkMaker() {
+                    @Override
+                    public Optional<Link> getClassLink(Class aClass) {
+                        loaded.add(new WeakReference<>(aClass));
+                        return Optional.empty();
+                    }
+                }).withClasspath(classes).addPackage(Vehicule.class.getPackage().getName()).snapshot();
+        for (int i = 0; i < 20 && loaded.stream().anyMatch(reference -> reference.get() != null); i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+
+        // then
+        assertThat(loaded).isNotEmpty().allSatisfy(reference -> assertThat(reference.get()).isNull());
+        assertThat(snapshot.getPackageClasses(0)).extracting(SnapshotClazz::getName)
+                .containsExactly("Car", "Machine", "Vehicule", "Wheel");
+    }
+
+    private static SnapshotAttribute attribute(SnapshotClazz clazz, String name) {
+        return clazz.getAttributes().stream().filter(attribute -> attribute.getName().equals(name))
+                .findFirst().orElseThrow();
+    }
+}
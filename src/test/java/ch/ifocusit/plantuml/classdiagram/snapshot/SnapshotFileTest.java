@@ -0,0 +1,116 @@
+/*
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ch.ifocusit.plantuml.classdiagram.snapshot;
+
+import ch.ifocusit.plantuml.classdiagram.ClassDiagramBuilder;
+import ch.ifocusit.plantuml.classdiagram.LinkMaker;
+import ch.ifocusit.plantuml.classdiagram.model.Link;
+import ch.ifocusit.plantuml.test.helper.domain.Devise;
+import ch.ifocusit.plantuml.test.helper.domain.Driver;
+import ch.ifocusit.plantuml.test.helper.domain.Price;
+import ch.ifocusit.plantuml.test.helper.domain.material.Car;
+import ch.ifocusit.plantuml.test.helper.domain.material.Vehicule;
+import ch.ifocusit.plantuml.test.helper.domain.material.Wheel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SnapshotFileTest {
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void readSnapshotShouldRenderSameDiagram() throws IOException {
+        // given
+        DiagramSnapshot snapshot = new ClassDiagramBuilder().<ClassDiagramBuilder>excludes(".*\\.ignored", "Machine")
+                .addPackage(Vehicule.class.getPackage()).addClasses(Vehicule.class,
+                        Car.class, Driver.class, Price.class, Wheel.class, Devise.class)
+                .<ClassDiagramBuilder>withLinkMaker(new LinkMaker() {
+                    @Override
+                    public Optional<Link> getClassLink(Class aClass) {
+                        Link link = new Link();
+                        link.setUrl("https://link.com/" + aClass.getSimpleName());
+                        link.setTooltip("Show " + aClass.getSimpleName());
+                        return Optional.of(link);
+                    }
+                })
+                .<ClassDiagramBuilder>setHeader("hide empty members").<ClassDiagramBuilder>setTitle("Vehicules")
+                .<ClassDiagramBuilder>setStartOptions("skinparam monochrome true").snapshot();
+        Path file = temp.resolve("diagram.snapshot");
+
+        // when
+        SnapshotFile.write(snapshot, "v1", file);
+        Optional<DiagramSnapshot> read = SnapshotFile.read(file, "v1");
+
+        // then
+        assertThat(read).isPresent();
+        assertThat(read.get().render()).isEqualTo(snapshot.render());
+        SnapshotClazz car = read.get().getTypes().get(0);
+        assertThat(car.getName()).isEqualTo("Car");
+        assertThat(car.getName()).isSameAs(read.get().getPackageClasses(0).get(0).getName());
+    }
+
+    @Test
+    void otherOrInvalidSnapshotShouldNotBeRead() throws IOException {
+        // given
+        DiagramSnapshot snapshot = new ClassDiagramBuilder().addClasses(Car.class, Wheel.class).snapshot();
+        Path file = temp.resolve("diagram.snapshot");
+        SnapshotFile.write(snapshot, "v1", file);
+        Path truncated = temp.resolve("truncated.snapshot");
+        byte[] content = Files.readAllBytes(file);
+        Files.write(truncated, Arrays.copyOf(content, content.length / 2));
+
+        // then
+        assertThat(SnapshotFile.read(file, "v2")).isEmpty();
+        assertThat(SnapshotFile.read(truncated, "v1")).isEmpty();
+        assertThat(SnapshotFile.read(temp.resolve("missing.snapshot"), "v1")).isEmpty();
+        assertThat(SnapshotFile.read(file, "v1")).isPresent();
+    }
+
+    @Test
+    void fingerprintShouldChangeWithInputs() throws IOException {
+        // given
+        Path classes = temp.resolve("classes");
+        Path classFile = classes.resolve("Car.class");
+        Files.createDirectories(classes);
+        Files.write(classFile, new byte[] { 1, 2, 3 });
+
+        // when
+        String fingerprint = SnapshotFile.fingerprint(List.of(classes), "excludes=none");
+        String same = SnapshotFile.fingerprint(List.of(classes), "excludes=none");
+        String otherSettings = SnapshotFile.fingerprint(List.of(classes), "excludes=Machine");
+        Files.setLastModifiedTime(classFile, FileTime.fromMillis(0));
+        String touched = SnapshotFile.fingerprint(List.of(classes), "excludes=none");
+
+        // then
+        assertThat(same).isEqualTo(fingerprint).hasSize(64);
+        assertThat(otherSettings).isNotEqualTo(fingerprint);
+        assertThat(touched).isNotEqualTo(fingerprint);
+    }
+}
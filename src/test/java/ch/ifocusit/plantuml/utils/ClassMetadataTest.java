@@ -0,0 +1,152 @@
+/*
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ch.ifocusit.plantuml.utils;
+
+import ch.ifocusit.plantuml.test.helper.domain.Driver;
+import ch.ifocusit.plantuml.test.helper.domain.Price;
+import ch.ifocusit.plantuml.test.helper.domain.material.Car;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClassMetadataTest {
+
+    @ParameterizedTest
+    @ValueSource(classes = { Car.class, Driver.class, Price.class, Bean.class, SubBean.class, Child.class })
+    void accessorsShouldMatchIntrospector(Class<?> aClass) throws IntrospectionException {
+        PropertyDescriptor[] properties = Introspector.getBeanInfo(aClass).getPropertyDescriptors();
+        ClassMetadata metadata = ClassMetadata.of(aClass);
+
+        for (Method method : aClass.getDeclaredMethods()) {
+            if (!Modifier.isPublic(method.getModifiers())) {
+                continue;
+            }
+            boolean getter = Stream.of(properties).map(PropertyDescriptor::getReadMethod)
+                    .filter(Objects::nonNull).anyMatch(method::equals);
+            boolean setter = Stream.of(properties).map(PropertyDescriptor::getWriteMethod)
+                    .filter(Objects::nonNull).anyMatch(method::equals);
+
+            assertThat(metadata.isGetter(method)).as("getter %s", method).isEqualTo(getter);
+            assertThat(metadata.isSetter(method)).as("setter %s", method).isEqualTo(setter);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public static class Bean {
+
+        public String get() {
+            return null;
+        }
+
+        public boolean isActive() {
+            return true;
+        }
+
+        public boolean getActive() {
+            return true;
+        }
+
+        public void setActive(boolean active) {
+        }
+
+        public Boolean isWrapped() {
+            return true;
+        }
+
+        public Integer getCount() {
+            return 0;
+        }
+
+        public void setCount(String count) {
+        }
+
+        public String getLabel(int index) {
+            return null;
+        }
+
+        public void setOnly(Object value) {
+        }
+
+        public String setChained(String value) {
+            return value;
+        }
+
+        public static String getStatic() {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public static class SubBean extends Bean {
+
+        // inherited getter of another type, not a setter
+        public void setCount(Long count) {
+        }
+
+        // inherited "is" getter
+        public void setActive(Boolean active) {
+        }
+
+        public void setLabel(String label) {
+        }
+
+        // covariant override of an inherited getter
+        @Override
+        public String get() {
+            return null;
+        }
+
+        public Number getAmount() {
+            return 0;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public static class Base {
+
+        public Integer getName() {
+            return 0;
+        }
+
+        public String getTitle() {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public static class Child extends Base {
+
+        // inherited getter of another type, not a setter
+        public void setName(String name) {
+        }
+
+        // paired with the inherited getter
+        public void setTitle(String title) {
+        }
+    }
+}
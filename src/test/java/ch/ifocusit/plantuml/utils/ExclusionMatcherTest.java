@@ -0,0 +1,95 @@
+/*
+ * Plantuml builder
+ *
+ * Copyright (C) 2024 Focus IT
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more contributor license
+ * agreements. See the NOTICE file distributed with this work for additional information regarding
+ * copyright ownership. The ASF licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License. You may obtain a
+ * copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ch.ifocusit.plantuml.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExclusionMatcherTest {
+
+    private static final String[] REGEXES = { "com\\.acme\\.Car\\.brand", "com\\.acme\\..*",
+            ".*\\.ignored", ".*\\.get[A-Z].*", "org\\.[a-z]+\\.Price\\.(amount|devise)",
+            "(a)\\1\\.x", "Machine" };
+
+    private static final String[][] MEMBERS = { { "com.acme.Car", "brand" }, { "com.acme.Car", "model" },
+            { "org.other.Car", "ignored" }, { "org.other.Car", "ignoredToo" }, { "org.other.Car", "getName" },
+            { "org.other.Car", "name" }, { "org.shop.Price", "amount" }, { "org.shop.Price", "currency" },
+            { "aa", "x" }, { "Machine", "" }, { "com.acmeX", "a" } };
+
+    @Test
+    void regexesShouldMatchLikeStringMatches() {
+        ExclusionMatcher matcher = ExclusionMatcher.compile(REGEXES);
+
+        for (String[] member : MEMBERS) {
+            String name = member[0] + "." + member[1];
+            boolean expected = List.of(REGEXES).stream().anyMatch(name::matches);
+            assertThat(matcher.matches(member[0], member[1])).as(name).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void globAndPrefixShouldMatch() {
+        ExclusionMatcher matcher = ExclusionMatcher.compile("glob:com.acme.*.id", "glob:**.ignored",
+                "glob:org.shop.**", "glob:org.b?g.Car.name", "prefix:net.legacy.");
+
+        assertThat(matcher.matches("com.acme.Car", "id")).isTrue();
+        assertThat(matcher.matches("com.acme.sub.Car", "id")).isFalse();
+        assertThat(matcher.matches("any.Car", "ignored")).isTrue();
+        assertThat(matcher.matches("org.shop.deep.Price", "amount")).isTrue();
+        assertThat(matcher.matches("org.big.Car", "name")).isTrue();
+        assertThat(matcher.matches("org.bag.Car", "model")).isFalse();
+        assertThat(matcher.matches("net.legacy.Car", "name")).isTrue();
+        assertThat(matcher.matches("net.Car", "name")).isFalse();
+    }
+
+    @Test
+    void matchShouldNotAllocate() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        // given
+        List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            patterns.add("com\\.acme\\.module" + i + "\\..*");
+            patterns.add("glob:**.Entity" + i + ".secret");
+        }
+        patterns.add("org\\.shop\\.[A-Z][a-z]+\\.internal.*");
+        ExclusionMatcher matcher = ExclusionMatcher.compile(patterns);
+        for (int i = 0; i < 10_000; i++) {
+            matcher.matches("org.shop.Price", "amount");
+        }
+
+        // when
+        long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        int matches = 0;
+        for (int i = 0; i < 100_000; i++) {
+            matches += matcher.matches("com.acme.module42.Car", "brand") ? 1 : 0;
+            matches += matcher.matches("org.shop.Price", "amount") ? 1 : 0;
+        }
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+
+        // then
+        assertThat(matches).isEqualTo(100_000);
+        assertThat(allocated / 200_000).isZero();
+    }
+}